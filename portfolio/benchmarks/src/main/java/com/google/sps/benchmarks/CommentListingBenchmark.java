@@ -0,0 +1,108 @@
+package com.google.sps.benchmarks;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.Query.SortDirection;
+import com.google.sps.servlets.DataServlet;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of listing comments through {@code GET /comments} for every sort order, both
+ * as pages and as a stream of all comments. Pages are measured both read from datastore and served
+ * from the servlet's page cache. Sample time mode reports the p50, p90, p99 and maximum latency.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CommentListingBenchmark {
+  private static final String PAGE_SIZE = "20";
+
+  @Param({"newest", "oldest", "user"})
+  public String order;
+
+  /** Comments per page, or "none" to stream all comments. */
+  @Param({PAGE_SIZE, "none"})
+  public String limit;
+
+  /**
+   * "cold" to clear the servlet's page cache before every request, so that pages are read from
+   * datastore, or "warm" to serve them from the cache. Streams are never cached.
+   */
+  @Param({"cold", "warm"})
+  public String cache;
+
+  private DataServlet servlet;
+  private HttpServletRequest firstPageRequest;
+  private HttpServletRequest secondPageRequest;
+  private HttpServletRequest clearCacheRequest;
+  private HttpServletResponse response;
+
+  @Setup(Level.Trial)
+  public void setUp(LocalAppEngine appEngine) throws IOException {
+    appEngine.attachToCurrentThread();
+    servlet = new DataServlet();
+    String pageSize = limit.equals("none") ? null : limit;
+    firstPageRequest = ServletRequests.request("order", order, "limit", pageSize);
+    secondPageRequest = ServletRequests.request(
+        "order", order, "limit", PAGE_SIZE, "start", getSecondPageCursor());
+    clearCacheRequest = LocalAppEngine.clearCacheRequest();
+    response = ServletRequests.response();
+  }
+
+  @Setup(Level.Invocation)
+  public void clearCache() throws IOException {
+    if (cache.equals("cold")) {
+      servlet.doDelete(clearCacheRequest, response);
+    }
+  }
+
+  /** Lists the first page of comments, or all comments when there is no limit. */
+  @Benchmark
+  public void getFirstPage() throws IOException {
+    servlet.doGet(firstPageRequest, response);
+  }
+
+  /** Lists the second page of comments using the cursor of the first one. */
+  @Benchmark
+  public void getSecondPage() throws IOException {
+    servlet.doGet(secondPageRequest, response);
+  }
+
+  /** Returns the cursor pointing after the first page of comments in the benchmark's order. */
+  private String getSecondPageCursor() {
+    Query query = new Query("Comment");
+    switch (order) {
+      case "oldest":
+        query.addSort("timestamp", SortDirection.ASCENDING);
+        break;
+      case "user":
+        query.addSort("userEmail", SortDirection.ASCENDING);
+        break;
+      default:
+        query.addSort("timestamp", SortDirection.DESCENDING);
+    }
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    FetchOptions firstPage = FetchOptions.Builder.withLimit(Integer.parseInt(PAGE_SIZE));
+    return datastore.prepare(query).asQueryResultList(firstPage).getCursor().toWebSafeString();
+  }
+}
@@ -0,0 +1,81 @@
+package com.google.sps.benchmarks;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.sps.servlets.CommentsStatisticServlet;
+import com.google.sps.servlets.DataServlet;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of posting and deleting a comment, and of reading the daily comment counts
+ * that both of them update. Sample time mode reports the p50, p90, p99 and maximum latency.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CommentUpdateBenchmark {
+  private DataServlet dataServlet;
+  private CommentsStatisticServlet statisticServlet;
+  private HttpServletRequest postRequest;
+  private HttpServletRequest statisticRequest;
+  private HttpServletRequest deleteRequest;
+  private HttpServletResponse response;
+  private DatastoreService datastore;
+
+  @Setup(Level.Trial)
+  public void setUp(LocalAppEngine appEngine) throws IOException {
+    appEngine.attachToCurrentThread();
+    datastore = DatastoreServiceFactory.getDatastoreService();
+    dataServlet = new DataServlet();
+    statisticServlet = new CommentsStatisticServlet();
+    postRequest = ServletRequests.request("comment", "Benchmark comment");
+    LocalDate today = LocalDate.now();
+    statisticRequest = ServletRequests.request(
+        "start-date", today.minusDays(365).toString(), "end-date", today.toString());
+    response = ServletRequests.response();
+  }
+
+  @Setup(Level.Invocation)
+  public void storeCommentToDelete() {
+    // Every call to deleteComment needs its own comment. Storing it is not measured.
+    String id = LocalAppEngine.putComment(
+        datastore, LocalAppEngine.USER_EMAIL, System.currentTimeMillis());
+    deleteRequest = ServletRequests.request("id", id);
+  }
+
+  /** POST /comments without an image. */
+  @Benchmark
+  public void postComment() throws IOException {
+    dataServlet.doPost(postRequest, response);
+  }
+
+  /** DELETE /comments for a single comment. */
+  @Benchmark
+  public void deleteComment() throws IOException {
+    dataServlet.doDelete(deleteRequest, response);
+  }
+
+  /** GET /comments-stats for the last year. */
+  @Benchmark
+  public void getStatistics() throws IOException {
+    statisticServlet.doGet(statisticRequest, response);
+  }
+}
@@ -0,0 +1,101 @@
+package com.google.sps.benchmarks;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.tools.development.testing.LocalBlobstoreServiceTestConfig;
+import com.google.appengine.tools.development.testing.LocalDatastoreServiceTestConfig;
+import com.google.appengine.tools.development.testing.LocalServiceTestHelper;
+import com.google.appengine.tools.development.testing.LocalUserServiceTestConfig;
+import com.google.apphosting.api.ApiProxy;
+import com.google.sps.data.Comment;
+import com.google.sps.servlets.DataServlet;
+import com.google.sps.servlets.utils.CommentCounter;
+import java.io.IOException;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.http.HttpServletRequest;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * In-memory App Engine services shared by all benchmark threads, seeded with random comments.
+ * Nothing here talks to the cloud.
+ */
+@State(Scope.Benchmark)
+public class LocalAppEngine {
+  static final String USER_EMAIL = "user0@example.com";
+  private static final int NUMBER_OF_USERS = 50;
+  private static final long ONE_YEAR_MILLIS = TimeUnit.DAYS.toMillis(365);
+
+  @Param({"1000", "10000"})
+  public int numberOfComments;
+
+  private LocalServiceTestHelper helper;
+  private ApiProxy.Environment environment;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    helper = new LocalServiceTestHelper(
+        new LocalDatastoreServiceTestConfig().setNoStorage(true),
+        new LocalUserServiceTestConfig(),
+        new LocalBlobstoreServiceTestConfig().setNoStorage(true))
+        .setEnvIsLoggedIn(true)
+        .setEnvEmail(USER_EMAIL)
+        .setEnvAuthDomain("example.com");
+    helper.setUp();
+    environment = ApiProxy.getCurrentEnvironment();
+    seedComments();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    helper.tearDown();
+  }
+
+  /** Makes the local services available to the calling thread. */
+  void attachToCurrentThread() {
+    ApiProxy.setEnvironmentForCurrentThread(environment);
+  }
+
+  /** Stores a new comment and returns its id. */
+  static String putComment(DatastoreService datastore, String userEmail, long timestamp) {
+    Comment comment = new Comment(UUID.randomUUID().toString(), "Benchmark comment", userEmail,
+        timestamp);
+    Entity entity = new Entity("Comment");
+    entity.setProperty("content", comment.getContent());
+    entity.setProperty("id", comment.getIdString());
+    entity.setProperty("userEmail", comment.getUserEmail());
+    entity.setProperty("timestamp", comment.getTimestamp());
+    datastore.put(entity);
+    return comment.getIdString();
+  }
+
+  /** Stores comments from random users spread over the last year, and their daily counts. */
+  private void seedComments() throws IOException {
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    Random random = new Random(42);
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < numberOfComments; i++) {
+      String userEmail = "user" + random.nextInt(NUMBER_OF_USERS) + "@example.com";
+      long timestamp = now - (long) (random.nextDouble() * ONE_YEAR_MILLIS);
+      putComment(datastore, userEmail, timestamp);
+    }
+    CommentCounter.rebuild();
+    // The comments were stored without the servlet, so drop any pages it cached before.
+    new DataServlet().doDelete(clearCacheRequest(), ServletRequests.response());
+  }
+
+  /**
+   * Returns a request that deletes a comment that doesn't exist. Like every write through
+   * {@link DataServlet}, it drops the servlet's cached comment pages.
+   */
+  static HttpServletRequest clearCacheRequest() {
+    return ServletRequests.request("id", "no-such-comment");
+  }
+}
@@ -0,0 +1,57 @@
+package com.google.sps.benchmarks;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/** Builds fake servlet requests and responses for calling servlets outside of a container. */
+final class ServletRequests {
+  /** Request attribute the blobstore service reads uploaded files from. */
+  private static final String UPLOADED_BLOBS_ATTRIBUTE =
+      "com.google.appengine.api.blobstore.upload.blobkeys";
+
+  private ServletRequests() {}
+
+  /** Returns a request with the given parameters, given as name-value pairs. */
+  static HttpServletRequest request(String... nameValuePairs) {
+    Map<String, String[]> parameters = new HashMap<>();
+    for (int i = 0; i < nameValuePairs.length; i += 2) {
+      if (nameValuePairs[i + 1] != null) {
+        parameters.put(nameValuePairs[i], new String[] {nameValuePairs[i + 1]});
+      }
+    }
+
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getParameterMap()).thenReturn(parameters);
+    for (Map.Entry<String, String[]> parameter : parameters.entrySet()) {
+      when(request.getParameter(parameter.getKey())).thenReturn(parameter.getValue()[0]);
+    }
+    // Look like a blobstore upload callback without any uploaded file.
+    when(request.getAttribute(UPLOADED_BLOBS_ATTRIBUTE)).thenReturn(Collections.emptyMap());
+    return request;
+  }
+
+  /** Returns a response that discards everything written to it. */
+  static HttpServletResponse response() throws IOException {
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    when(response.getWriter()).thenReturn(new PrintWriter(new Writer() {
+      @Override
+      public void write(char[] buffer, int offset, int length) {}
+
+      @Override
+      public void flush() {}
+
+      @Override
+      public void close() {}
+    }));
+    return response;
+  }
+}
@@ -11,6 +11,7 @@ public class Comment {
   private String userEmail;
   private long timestamp;
   private String imageUrl;
+  private String nickname;
   
   public Comment(String content, String userEmail) {
     this.id = UUID.randomUUID();
@@ -59,4 +60,12 @@ public class Comment {
   public long getTimestamp() {
     return timestamp;
   }
+
+  public String getNickname() {
+    return nickname;
+  }
+
+  public void setNickname(String nickname) {
+    this.nickname = nickname;
+  }
 }
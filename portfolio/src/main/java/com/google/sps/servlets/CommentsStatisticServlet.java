@@ -1,28 +1,15 @@
 package com.google.sps.servlets;
 
-import com.google.appengine.api.datastore.DatastoreService;
-import com.google.appengine.api.datastore.DatastoreServiceFactory;
-import com.google.appengine.api.datastore.Entity;
-import com.google.appengine.api.datastore.FetchOptions;
-import com.google.appengine.api.datastore.FetchOptions.Builder;
-import com.google.appengine.api.datastore.PreparedQuery;
-import com.google.appengine.api.datastore.Query;
-import com.google.appengine.api.datastore.Query.FilterOperator;
-import com.google.appengine.api.datastore.QueryResultList;
+import com.google.appengine.api.users.UserService;
+import com.google.appengine.api.users.UserServiceFactory;
 import com.google.gson.Gson;
-import com.google.sps.data.Comment;
+import com.google.sps.servlets.utils.CommentCounter;
 import java.io.IOException;
 import java.lang.Integer;
-import java.sql.Timestamp;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.time.Instant;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
 import java.util.Map;
-import java.util.HashMap;
-import java.util.TimeZone;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -32,9 +19,7 @@ import javax.servlet.http.HttpServletResponse;
 @WebServlet("/comments-stats")
 public class CommentsStatisticServlet extends HttpServlet {
   
-  private DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
   private DateTimeFormatter dateFormatter = DateTimeFormatter.ISO_LOCAL_DATE;
-  private ZoneId zoneId = ZoneId.systemDefault();
 
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
@@ -49,7 +34,12 @@ public class CommentsStatisticServlet extends HttpServlet {
       response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
       return;
     }
-    Map<LocalDate, Integer> commentsCount = getNumberOfComments(startingDate, endingDate);
+    // Every day in the range costs datastore reads, so don't let clients ask for too many.
+    if (CommentCounter.isRangeTooLong(startingDate, endingDate)) {
+      response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+      return;
+    }
+    Map<LocalDate, Integer> commentsCount = CommentCounter.getCounts(startingDate, endingDate);
     
     Gson gson = new Gson();
     String json = gson.toJson(commentsCount);
@@ -58,39 +48,14 @@ public class CommentsStatisticServlet extends HttpServlet {
     response.getWriter().println(json);
   }
 
-  /** Returns a list of comment entities created between the starting date and ending date (both inclusive). */
-  private QueryResultList<Entity> getComments(LocalDate startingDate, LocalDate endingDate) {
-    long startOfDay = startingDate.atStartOfDay(zoneId).toEpochSecond() * 1000;
-    LocalDate nextDay = endingDate.plusDays(1);
-    long startOfNextDay = nextDay.atStartOfDay(zoneId).toEpochSecond() * 1000;
-    
-    Query query = new Query("Comment");
-    query.addFilter("timestamp", FilterOperator.GREATER_THAN_OR_EQUAL, startOfDay);
-    query.addFilter("timestamp", FilterOperator.LESS_THAN, startOfNextDay);
-    PreparedQuery preparedQuery = datastore.prepare(query);
-    QueryResultList<Entity> results = preparedQuery.asQueryResultList(FetchOptions.Builder.withDefaults());
-    return results;
-  }
-
-  /** Returns the number of comments on each day in the given date range. */
-  private HashMap<LocalDate, Integer> getNumberOfComments(LocalDate startingDate, LocalDate endingDate) {
-    QueryResultList<Entity> comments = getComments(startingDate, endingDate);
-    HashMap<LocalDate, Integer> commentsCount = new HashMap<>();
-    for(Entity comment: comments) {
-      LocalDate date = getDateOfTimestamp((long) comment.getProperty("timestamp"));
-      if (commentsCount.containsKey(date)) {
-        commentsCount.put(date, commentsCount.get(date) + 1);
-      } else {
-        commentsCount.put(date, 1);
-      }
+  /** Recounts the comments of every day. Only admins are allowed to do this. */
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    UserService userService = UserServiceFactory.getUserService();
+    if (!userService.isUserLoggedIn() || !userService.isUserAdmin()) {
+      response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+      return;
     }
-    return commentsCount;
-  }
-
-  private LocalDate getDateOfTimestamp(long timestamp) {
-    LocalDateTime dateTime = LocalDateTime.ofInstant(
-      Instant.ofEpochMilli(timestamp), 
-      TimeZone.getDefault().toZoneId());
-    return dateTime.toLocalDate();
+    CommentCounter.rebuild();
   }
 }
@@ -25,9 +25,12 @@ import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
 import com.google.appengine.api.datastore.FetchOptions;
 import com.google.appengine.api.datastore.FetchOptions.Builder;
+import com.google.appengine.api.datastore.Key;
 import com.google.appengine.api.datastore.PreparedQuery;
+import com.google.appengine.api.datastore.PropertyProjection;
 import com.google.appengine.api.datastore.Query;
 import com.google.appengine.api.datastore.Query.FilterOperator;
+import com.google.appengine.api.datastore.QueryResultIterator;
 import com.google.appengine.api.datastore.QueryResultList;
 import com.google.appengine.api.datastore.Query.SortDirection;
 import com.google.appengine.api.images.ImagesService;
@@ -36,16 +39,22 @@ import com.google.appengine.api.images.ServingUrlOptions;
 import com.google.appengine.api.users.UserService;
 import com.google.appengine.api.users.UserServiceFactory;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import com.google.sps.data.Comment;
+import com.google.sps.servlets.utils.CommentCounter;
+import com.google.sps.servlets.utils.LruCache;
 import com.google.sps.servlets.utils.UserInfoHelper;
 import java.io.IOException;
 import java.lang.Integer;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -58,11 +67,41 @@ public class DataServlet extends HttpServlet {
   private DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
   private BlobstoreService blobstoreService = BlobstoreServiceFactory.getBlobstoreService();
     
+  /** Number of comments fetched from datastore at a time when streaming comments. */
+  private static final int STREAM_CHUNK_SIZE = 100;
+
+  /** Number of comments deleted from datastore and blobstore in one call. */
+  private static final int DELETE_BATCH_SIZE = 500;
+
+  /** Maximum number of comment pages kept in the cache. */
+  private static final int MAX_CACHED_PAGES = 256;
+
+  /**
+   * Maximum age of a cached comment page. Writes made through this instance invalidate the cache
+   * right away, this bounds how long writes made elsewhere stay invisible.
+   */
+  private static final long MAX_CACHED_PAGE_AGE_MILLIS = 60 * 1000;
+
+  /** Comment pages keyed by the request parameters that produced them. */
+  private static final LruCache<List<String>, CommentsResult> commentPages =
+      new LruCache<>(MAX_CACHED_PAGES, MAX_CACHED_PAGE_AGE_MILLIS);
+
+  /** Drops every cached comment page. Needed when a nickname shown on cached pages changes. */
+  static void clearCommentPagesCache() {
+    commentPages.invalidateAll();
+  }
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    if (!getLimit(request).isPresent()) {
+      // Without a limit the number of comments is unbounded, so don't hold them all in memory.
+      streamComments(request, response);
+      return;
+    }
+
     CommentsResult commentsResult;
     try {
-      commentsResult = fetchComments(request);
+      commentsResult = fetchCachedComments(request);
     } catch(IllegalArgumentException e) {
       response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
       return;
@@ -101,6 +140,8 @@ public class DataServlet extends HttpServlet {
       commentEntity.setProperty("imageBlobKey", imageBlobKey.get().getKeyString());
     }
     datastore.put(commentEntity);
+    CommentCounter.increment(comment.getTimestamp());
+    commentPages.invalidateAll();
 
     response.sendRedirect("/index.html");
   }
@@ -113,26 +154,101 @@ public class DataServlet extends HttpServlet {
     } else {
       deleteAllComments();
     }
+    commentPages.invalidateAll();
+  }
+
+  /** Returns comments from the cache, fetching them from datastore if they are not cached. */
+  private CommentsResult fetchCachedComments(HttpServletRequest request)
+      throws IllegalArgumentException {
+    List<String> cacheKey = Arrays.asList(request.getParameter("order"),
+        request.getParameter("limit"), request.getParameter("user-email"),
+        request.getParameter("start"), request.getParameter("with-nicknames"));
+    Optional<CommentsResult> cachedComments = commentPages.get(cacheKey);
+    if (cachedComments.isPresent()) {
+      return cachedComments.get();
+    }
+
+    // A write that lands while the comments are fetched invalidates the cache, don't put back the
+    // page read before it.
+    long generation = commentPages.getGeneration();
+    CommentsResult commentsResult = fetchComments(request);
+    commentPages.put(cacheKey, commentsResult, generation);
+    return commentsResult;
   }
 
   /** Returns comments fetched from datastore */
   private CommentsResult fetchComments(HttpServletRequest request) throws IllegalArgumentException {
-    // Prepare datastore query
-    Query query = new Query("Comment");
+    FetchOptions fetchOptions = getFetchOptions(request);
 
-    // Set limit options
-    FetchOptions fetchOptions = FetchOptions.Builder.withDefaults();
-    Optional<Integer> limit = getLimit(request);
-    if (limit.isPresent()) {
-      fetchOptions = FetchOptions.Builder.withLimit(limit.get());
+    // Create comment list
+    PreparedQuery preparedQuery = datastore.prepare(getCommentsQuery(request));
+
+    QueryResultList<Entity> results = preparedQuery.asQueryResultList(fetchOptions);
+
+    ArrayList<Comment> comments = new ArrayList<>();
+    for (Entity entity: results) {
+      Comment comment = transformEntityToComment(entity);
+      comments.add(comment);
+    }
+    if (isWithNicknames(request)) {
+      addNicknames(comments);
     }
 
-    // Set start cursor
-    Optional<Cursor> cursor = getCursor(request);
-    if (cursor.isPresent()) {
-      fetchOptions.startCursor(cursor.get());
+    String cursorString = results.getCursor().toWebSafeString();
+    if (comments.size() == 0) {
+      return new CommentsResult(comments, cursorString, true);
     }
-    
+    return new CommentsResult(comments, cursorString);
+  }
+
+  /**
+   * Writes the comments requested by the client to the response one at a time, in the same JSON
+   * format as {@code CommentsResult}. Comments are read from datastore in chunks while they are
+   * written, so memory use does not grow with the number of comments.
+   */
+  private void streamComments(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    QueryResultIterator<Entity> results;
+    try {
+      FetchOptions fetchOptions = getFetchOptions(request).chunkSize(STREAM_CHUNK_SIZE);
+      results = datastore.prepare(getCommentsQuery(request)).asQueryResultIterator(fetchOptions);
+    } catch(IllegalArgumentException e) {
+      response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+      return;
+    }
+
+    response.setContentType("application/json;");
+    Gson gson = new Gson();
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    writer.beginObject();
+    writer.name("comments").beginArray();
+    boolean withNicknames = isWithNicknames(request);
+    int numberOfComments = 0;
+    List<Comment> chunk = new ArrayList<>();
+    while (results.hasNext()) {
+      chunk.add(transformEntityToComment(results.next()));
+      if (chunk.size() == STREAM_CHUNK_SIZE || !results.hasNext()) {
+        if (withNicknames) {
+          addNicknames(chunk);
+        }
+        for (Comment comment: chunk) {
+          gson.toJson(comment, Comment.class, writer);
+        }
+        numberOfComments += chunk.size();
+        chunk.clear();
+      }
+    }
+    writer.endArray();
+    writer.name("cursor").value(results.getCursor().toWebSafeString());
+    writer.name("isEndOfComments").value(numberOfComments == 0);
+    writer.endObject();
+    writer.flush();
+  }
+
+  /** Returns the datastore query for the comments requested by the client. */
+  private Query getCommentsQuery(HttpServletRequest request) {
+    Query query = new Query("Comment");
+
     // Set userEmail filter
     Optional<String> userEmail = getUserEmail(request);
     if (userEmail.isPresent()) {
@@ -142,23 +258,41 @@ public class DataServlet extends HttpServlet {
     // Add sort order
     SortOrder sortOrder = getSortOrder(request);
     query.addSort(sortOrder.property, sortOrder.sortDirection);
+    return query;
+  }
 
-    // Create comment list
-    PreparedQuery preparedQuery = datastore.prepare(query);
-
-    QueryResultList<Entity> results = preparedQuery.asQueryResultList(fetchOptions);
+  /** Returns the fetch options for the limit and start cursor requested by the client. */
+  private FetchOptions getFetchOptions(HttpServletRequest request) throws IllegalArgumentException {
+    // Set limit options
+    FetchOptions fetchOptions = FetchOptions.Builder.withDefaults();
+    Optional<Integer> limit = getLimit(request);
+    if (limit.isPresent()) {
+      fetchOptions = FetchOptions.Builder.withLimit(limit.get());
+    }
 
-    ArrayList<Comment> comments = new ArrayList<>();
-    for (Entity entity: results) {
-      Comment comment = transformEntityToComment(entity);
-      comments.add(comment);
+    // Set start cursor
+    Optional<Cursor> cursor = getCursor(request);
+    if (cursor.isPresent()) {
+      fetchOptions.startCursor(cursor.get());
     }
+    return fetchOptions;
+  }
 
-    String cursorString = results.getCursor().toWebSafeString();
-    if (comments.size() == 0) {
-      return new CommentsResult(comments, cursorString, true);
+  /** Returns true if the client asked for the nickname of each comment author. */
+  private boolean isWithNicknames(HttpServletRequest request) {
+    return Boolean.parseBoolean(request.getParameter("with-nicknames"));
+  }
+
+  /** Sets the nickname of the author of each comment, looking up all authors at once. */
+  private void addNicknames(List<Comment> comments) {
+    Set<String> userEmails = new HashSet<>();
+    for (Comment comment: comments) {
+      userEmails.add(comment.getUserEmail());
+    }
+    Map<String, String> nicknames = UserInfoHelper.getNicknamesOfUsers(userEmails);
+    for (Comment comment: comments) {
+      comment.setNickname(nicknames.get(comment.getUserEmail()));
     }
-    return new CommentsResult(comments, cursorString);
   }
 
   /** Returns a Comment object constructed from the given entity. */
@@ -250,14 +384,33 @@ public class DataServlet extends HttpServlet {
     return Optional.of(cursor);
   }
 
-  /** Deletes all comments in datastore. */
+  /**
+   * Deletes all comments in datastore. Only the keys and image blob keys of the comments are
+   * read, and they are deleted in batches rather than one by one.
+   */
   private void deleteAllComments() {
-    Query query = new Query("Comment");
-    PreparedQuery results = datastore.prepare(query);
-    
-    for (Entity commentEntity: results.asIterable()) {
-      deleteCommentEntity(commentEntity);
+    // Projecting on the image blob key only returns the comments that have an image.
+    Query imageQuery = new Query("Comment");
+    imageQuery.addProjection(new PropertyProjection("imageBlobKey", String.class));
+    List<BlobKey> blobKeys = new ArrayList<>();
+    for (Entity commentEntity: datastore.prepare(imageQuery).asIterable()) {
+      blobKeys.add(new BlobKey((String) commentEntity.getProperty("imageBlobKey")));
+      if (blobKeys.size() == DELETE_BATCH_SIZE) {
+        deleteBlobs(blobKeys);
+      }
+    }
+    deleteBlobs(blobKeys);
+
+    Query keysQuery = new Query("Comment").setKeysOnly();
+    List<Key> keys = new ArrayList<>();
+    for (Entity commentEntity: datastore.prepare(keysQuery).asIterable()) {
+      keys.add(commentEntity.getKey());
+      if (keys.size() == DELETE_BATCH_SIZE) {
+        deleteEntities(keys);
+      }
     }
+    deleteEntities(keys);
+    CommentCounter.deleteAll();
   }
 
   /** Deletes the comment with the given id. */
@@ -265,18 +418,33 @@ public class DataServlet extends HttpServlet {
     Query query = new Query("Comment").addFilter("id", FilterOperator.EQUAL, id);
     PreparedQuery results = datastore.prepare(query);
 
+    List<BlobKey> blobKeys = new ArrayList<>();
+    List<Key> keys = new ArrayList<>();
     for (Entity entity: results.asIterable()) {
-      deleteCommentEntity(entity);
+      if (entity.getProperty("imageBlobKey") != null) {
+        blobKeys.add(new BlobKey((String) entity.getProperty("imageBlobKey")));
+      }
+      keys.add(entity.getKey());
+      CommentCounter.decrement((long) entity.getProperty("timestamp"));
+    }
+    deleteBlobs(blobKeys);
+    deleteEntities(keys);
+  }
+
+  /** Deletes the blobs with the given keys in one call and clears the list. */
+  private void deleteBlobs(List<BlobKey> blobKeys) {
+    if (!blobKeys.isEmpty()) {
+      blobstoreService.delete(blobKeys.toArray(new BlobKey[0]));
+      blobKeys.clear();
     }
   }
 
-  /** Deletes the comment entity. */
-  private void deleteCommentEntity(Entity comment) {
-    if (comment.getProperty("imageBlobKey") != null) {
-      String blobKey = (String) comment.getProperty("imageBlobKey");
-      blobstoreService.delete(new BlobKey(blobKey));
+  /** Deletes the entities with the given keys in one call and clears the list. */
+  private void deleteEntities(List<Key> keys) {
+    if (!keys.isEmpty()) {
+      datastore.delete(keys);
+      keys.clear();
     }
-    datastore.delete(comment.getKey());
   }
 
   private class SortOrder {
@@ -1,8 +1,5 @@
 package com.google.sps.servlets;
 
-import com.google.appengine.api.datastore.DatastoreService;
-import com.google.appengine.api.datastore.DatastoreServiceFactory;
-import com.google.appengine.api.datastore.Entity;
 import com.google.appengine.api.datastore.PreparedQuery;
 import com.google.appengine.api.datastore.Query;
 import com.google.appengine.api.users.UserService;
@@ -19,8 +16,6 @@ import javax.servlet.http.HttpServletResponse;
 @WebServlet("/user")
 public class UserServlet extends HttpServlet {
 
-  private DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
     response.setContentType("application/json");
@@ -59,11 +54,9 @@ public class UserServlet extends HttpServlet {
       String userNickname = request.getParameter("nickname");
       String id = userService.getCurrentUser().getUserId();
 
-      Entity entity = new Entity("User", id);
-      entity.setProperty("id", id);
-      entity.setProperty("nickname", userNickname);
-      entity.setProperty("email", userEmail);
-      datastore.put(entity);
+      UserInfoHelper.saveUser(id, userEmail, userNickname);
+      // Cached comment pages may show the old nickname.
+      DataServlet.clearCommentPagesCache();
       response.sendRedirect("/index.html");
     } else {
       String urlToRedirectToAfterUserLogsIn = "/";
@@ -0,0 +1,205 @@
+package com.google.sps.servlets.utils;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.PropertyProjection;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.Transaction;
+import com.google.appengine.api.datastore.TransactionOptions;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Helper class for keeping the number of comments posted on each day.
+ *
+ * <p>The count of a day is split over several shard entities so that comments posted at the same
+ * time don't all update the same entity. The count of the day is the sum of its shards.
+ *
+ * <p>Counts are updated after the comment itself is stored, outside of its transaction. If a count
+ * can't be updated the comment is still kept, and the counts are off until {@link #rebuild} runs.
+ */
+public class CommentCounter {
+  /** The largest number of days that {@link #getCounts} can be asked for at once. */
+  public static final int MAX_DAYS = 366;
+
+  private static final String KIND = "CommentDailyCount";
+  private static final int NUMBER_OF_SHARDS = 10;
+  private static final int MAX_KEYS_PER_GET = 1000;
+  private static final int MAX_KEYS_PER_DELETE = 500;
+  private static final int MAX_RETRIES = 3;
+
+  private static final Logger logger = Logger.getLogger(CommentCounter.class.getName());
+
+  private static DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+  private static ZoneId zoneId = ZoneId.systemDefault();
+
+  /** Counts a comment posted at the given timestamp. */
+  public static void increment(long timestamp) {
+    update(getDateOfTimestamp(timestamp), 1);
+  }
+
+  /** Stops counting a comment posted at the given timestamp. */
+  public static void decrement(long timestamp) {
+    update(getDateOfTimestamp(timestamp), -1);
+  }
+
+  /** Returns true if the given date range (both inclusive) is longer than {@link #MAX_DAYS}. */
+  public static boolean isRangeTooLong(LocalDate startingDate, LocalDate endingDate) {
+    return ChronoUnit.DAYS.between(startingDate, endingDate) >= MAX_DAYS;
+  }
+
+  /**
+   * Returns the number of comments on each day in the given date range (both inclusive). Days
+   * without comments are left out.
+   *
+   * @throws IllegalArgumentException if the range is longer than {@link #MAX_DAYS} days
+   */
+  public static HashMap<LocalDate, Integer> getCounts(LocalDate startingDate, LocalDate endingDate) {
+    if (isRangeTooLong(startingDate, endingDate)) {
+      throw new IllegalArgumentException("Date range is longer than " + MAX_DAYS + " days");
+    }
+    List<Key> keys = new ArrayList<>();
+    for (LocalDate date = startingDate; !date.isAfter(endingDate); date = date.plusDays(1)) {
+      for (int shard = 0; shard < NUMBER_OF_SHARDS; shard++) {
+        keys.add(getKey(date, shard));
+      }
+    }
+
+    HashMap<LocalDate, Integer> commentsCount = new HashMap<>();
+    for (int i = 0; i < keys.size(); i += MAX_KEYS_PER_GET) {
+      List<Key> batch = keys.subList(i, Math.min(i + MAX_KEYS_PER_GET, keys.size()));
+      for (Entity shard : datastore.get(batch).values()) {
+        LocalDate date = LocalDate.parse((String) shard.getProperty("date"));
+        int count = ((Long) shard.getProperty("count")).intValue();
+        commentsCount.merge(date, count, Integer::sum);
+      }
+    }
+    commentsCount.values().removeIf(count -> count <= 0);
+    return commentsCount;
+  }
+
+  /** Resets the count of every day to zero. */
+  public static void deleteAll() {
+    Query query = new Query(KIND).setKeysOnly();
+    List<Key> keys = new ArrayList<>();
+    for (Entity entity : datastore.prepare(query).asIterable()) {
+      keys.add(entity.getKey());
+      if (keys.size() == MAX_KEYS_PER_DELETE) {
+        datastore.delete(keys);
+        keys.clear();
+      }
+    }
+    datastore.delete(keys);
+  }
+
+  /**
+   * Recounts the comments of every day from the comment entities. This is needed once for
+   * comments posted before the counts were kept.
+   *
+   * <p>All shards of a day are overwritten together in one transaction, so the count of a day is
+   * never read half rebuilt. Comments posted or deleted while the comments are being counted are
+   * lost from the counts, though, so this must only run while no comments are posted or deleted.
+   */
+  public static void rebuild() {
+    Query query = new Query("Comment");
+    query.addProjection(new PropertyProjection("timestamp", Long.class));
+    Map<LocalDate, Integer> commentsCount = new HashMap<>();
+    for (Entity comment : datastore.prepare(query).asIterable()) {
+      LocalDate date = getDateOfTimestamp((long) comment.getProperty("timestamp"));
+      commentsCount.merge(date, 1, Integer::sum);
+    }
+
+    // Days that have shards but no comments anymore are reset to zero as well.
+    Set<LocalDate> dates = new HashSet<>(commentsCount.keySet());
+    Query shardsQuery = new Query(KIND);
+    shardsQuery.addProjection(new PropertyProjection("date", String.class));
+    for (Entity shard : datastore.prepare(shardsQuery).asIterable()) {
+      dates.add(LocalDate.parse((String) shard.getProperty("date")));
+    }
+
+    for (LocalDate date : dates) {
+      overwrite(date, commentsCount.getOrDefault(date, 0));
+    }
+  }
+
+  /** Sets the count of the given date to count, keeping it all in the first shard. */
+  private static void overwrite(LocalDate date, int count) {
+    List<Entity> shards = new ArrayList<>();
+    for (int shardNumber = 0; shardNumber < NUMBER_OF_SHARDS; shardNumber++) {
+      Entity shard = new Entity(getKey(date, shardNumber));
+      shard.setProperty("date", date.toString());
+      shard.setProperty("count", shardNumber == 0 ? (long) count : 0L);
+      shards.add(shard);
+    }
+
+    // The shards are separate entity groups, so the transaction has to be cross-group.
+    Transaction transaction = datastore.beginTransaction(TransactionOptions.Builder.withXG(true));
+    try {
+      datastore.put(transaction, shards);
+      transaction.commit();
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+    }
+  }
+
+  /**
+   * Adds delta to a random shard of the given date. Gives up after {@link #MAX_RETRIES} attempts
+   * that collide with other updates, logging the lost delta instead of failing the request.
+   */
+  private static void update(LocalDate date, int delta) {
+    Key key = getKey(date, ThreadLocalRandom.current().nextInt(NUMBER_OF_SHARDS));
+    for (int attempt = 1; ; attempt++) {
+      Transaction transaction = datastore.beginTransaction();
+      try {
+        Entity shard;
+        try {
+          shard = datastore.get(transaction, key);
+        } catch (EntityNotFoundException e) {
+          shard = new Entity(key);
+          shard.setProperty("date", date.toString());
+          shard.setProperty("count", 0L);
+        }
+        shard.setProperty("count", (long) shard.getProperty("count") + delta);
+        datastore.put(transaction, shard);
+        transaction.commit();
+        return;
+      } catch (ConcurrentModificationException e) {
+        if (attempt == MAX_RETRIES) {
+          logger.log(Level.WARNING, "Could not add " + delta + " to the comment count of " + date
+              + ", rebuild the counts to fix it", e);
+          return;
+        }
+      } finally {
+        if (transaction.isActive()) {
+          transaction.rollback();
+        }
+      }
+    }
+  }
+
+  private static Key getKey(LocalDate date, int shard) {
+    return KeyFactory.createKey(KIND, date + "#" + shard);
+  }
+
+  private static LocalDate getDateOfTimestamp(long timestamp) {
+    return Instant.ofEpochMilli(timestamp).atZone(zoneId).toLocalDate();
+  }
+}
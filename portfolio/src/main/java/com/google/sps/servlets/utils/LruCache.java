@@ -0,0 +1,86 @@
+package com.google.sps.servlets.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A size-bounded, thread-safe cache that evicts the least recently used entry when it is full.
+ * Entries older than the maximum age are treated as missing.
+ */
+public class LruCache<K, V> {
+  private final int maxSize;
+  private final long maxAgeMillis;
+  private final LinkedHashMap<K, CacheEntry<V>> entries;
+  private long generation;
+
+  public LruCache(int maxSize, long maxAgeMillis) {
+    this.maxSize = maxSize;
+    this.maxAgeMillis = maxAgeMillis;
+    // Use access order so that the eldest entry is the least recently used one.
+    this.entries = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+        return size() > LruCache.this.maxSize;
+      }
+    };
+  }
+
+  /** Returns the value cached for the key if it exists and has not expired. */
+  public synchronized Optional<V> get(K key) {
+    CacheEntry<V> entry = entries.get(key);
+    if (entry == null) {
+      return Optional.empty();
+    }
+    if (System.currentTimeMillis() - entry.createdAt > maxAgeMillis) {
+      entries.remove(key);
+      return Optional.empty();
+    }
+    return Optional.of(entry.value);
+  }
+
+  /** Caches the value for the key. */
+  public synchronized void put(K key, V value) {
+    entries.put(key, new CacheEntry<>(value, System.currentTimeMillis()));
+  }
+
+  /**
+   * Returns a number that changes every time values are invalidated. Read it before loading a
+   * value and pass it to {@link #put(Object, Object, long)}.
+   */
+  public synchronized long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Caches the value for the key unless values were invalidated since the given generation was
+   * read, in which case the value may have been loaded from outdated data.
+   */
+  public synchronized void put(K key, V value, long generation) {
+    if (generation == this.generation) {
+      put(key, value);
+    }
+  }
+
+  /** Removes the value cached for the key. */
+  public synchronized void invalidate(K key) {
+    entries.remove(key);
+    generation++;
+  }
+
+  /** Removes all cached values. */
+  public synchronized void invalidateAll() {
+    entries.clear();
+    generation++;
+  }
+
+  private static class CacheEntry<V> {
+    final V value;
+    final long createdAt;
+
+    CacheEntry(V value, long createdAt) {
+      this.value = value;
+      this.createdAt = createdAt;
+    }
+  }
+}
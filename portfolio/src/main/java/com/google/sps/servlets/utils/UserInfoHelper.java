@@ -3,28 +3,200 @@ package com.google.sps.servlets.utils;
 import com.google.appengine.api.datastore.DatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
-import com.google.appengine.api.datastore.PreparedQuery;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
 import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.Transaction;
+import com.google.appengine.api.datastore.TransactionOptions;
 import com.google.appengine.api.users.UserService;
 import com.google.appengine.api.users.UserServiceFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * Helper class for retrieving user information.
+ *
+ * <p>Besides the User entity keyed by user id, every user has a UserEmail entity keyed by their
+ * email, so that nicknames can be looked up by key instead of with a query on the email.
  */
 public class UserInfoHelper {
+  /** Maximum number of nicknames kept in the cache. */
+  private static final int MAX_CACHED_NICKNAMES = 1000;
+
+  /** Maximum age of a cached nickname. */
+  private static final long MAX_CACHED_NICKNAME_AGE_MILLIS = 5 * 60 * 1000;
+
+  /** Maximum number of entities stored in a single call. */
+  private static final int MAX_ENTITIES_PER_PUT = 500;
+
+  /** Maximum number of keys fetched in a single call. */
+  private static final int MAX_KEYS_PER_GET = 1000;
+
   private static DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
 
-  /** Returns the nickname of the user with given email if it exists. */
+  /** Nicknames keyed by email. Users without a nickname are cached as empty. */
+  private static LruCache<String, Optional<String>> nicknames =
+      new LruCache<>(MAX_CACHED_NICKNAMES, MAX_CACHED_NICKNAME_AGE_MILLIS);
+
+  /**
+   * Returns the nickname of the user with given email if it exists. A null or empty email has no
+   * nickname.
+   */
   public static Optional<String> getNicknameOfUser(String email) {
-    Query query = new Query("User")
-        .setFilter(new Query.FilterPredicate("email", Query.FilterOperator.EQUAL, email));
-    PreparedQuery results = datastore.prepare(query);
-    Entity entity = results.asSingleEntity();
-    if (entity == null) {
+    if (email == null || email.isEmpty()) {
       return Optional.empty();
     }
-    String nickname = (String) entity.getProperty("nickname");
-    return Optional.of(nickname);
+
+    Optional<Optional<String>> cachedNickname = nicknames.get(email);
+    if (cachedNickname.isPresent()) {
+      return cachedNickname.get();
+    }
+
+    long generation = nicknames.getGeneration();
+    Optional<String> nickname;
+    try {
+      Entity entity = datastore.get(getUserEmailKey(email));
+      nickname = Optional.ofNullable((String) entity.getProperty("nickname"));
+    } catch (EntityNotFoundException e) {
+      nickname = Optional.empty();
+    }
+    nicknames.put(email, nickname, generation);
+    return nickname;
+  }
+
+  /**
+   * Returns the nicknames of the users with the given emails, keyed by email. Users without a
+   * nickname are left out, as are null and empty emails. Nicknames that are not cached are fetched
+   * together, in batches of at most {@code MAX_KEYS_PER_GET}.
+   */
+  public static Map<String, String> getNicknamesOfUsers(Collection<String> emails) {
+    Map<String, String> result = new HashMap<>();
+    List<Key> uncachedKeys = new ArrayList<>();
+    for (String email : new LinkedHashSet<>(emails)) {
+      if (email == null || email.isEmpty()) {
+        continue;
+      }
+      Optional<Optional<String>> cachedNickname = nicknames.get(email);
+      if (!cachedNickname.isPresent()) {
+        uncachedKeys.add(getUserEmailKey(email));
+      } else if (cachedNickname.get().isPresent()) {
+        result.put(email, cachedNickname.get().get());
+      }
+    }
+
+    long generation = nicknames.getGeneration();
+    Map<Key, Entity> entities = new HashMap<>();
+    for (int i = 0; i < uncachedKeys.size(); i += MAX_KEYS_PER_GET) {
+      List<Key> batch =
+          uncachedKeys.subList(i, Math.min(i + MAX_KEYS_PER_GET, uncachedKeys.size()));
+      entities.putAll(datastore.get(batch));
+    }
+    for (Key key : uncachedKeys) {
+      String email = key.getName();
+      Optional<String> nickname = Optional.empty();
+      if (entities.containsKey(key)) {
+        nickname = Optional.ofNullable((String) entities.get(key).getProperty("nickname"));
+      }
+      nicknames.put(email, nickname, generation);
+      nickname.ifPresent(value -> result.put(email, value));
+    }
+    return result;
+  }
+
+  /**
+   * Stores the user with the given id, email and nickname. The UserEmail entity is written in the
+   * same transaction as the User entity, and when the email changed, the UserEmail entity of the
+   * old email is deleted in it too, so that the old email no longer resolves to this user.
+   */
+  public static void saveUser(String id, String email, String nickname) {
+    Entity user = new Entity("User", id);
+    user.setProperty("id", id);
+    user.setProperty("nickname", nickname);
+    user.setProperty("email", email);
+
+    // The entities are separate entity groups, so the transaction has to be cross-group.
+    Transaction transaction = datastore.beginTransaction(TransactionOptions.Builder.withXG(true));
+    Optional<String> oldEmail = Optional.empty();
+    try {
+      try {
+        oldEmail = Optional.ofNullable(
+            (String) datastore.get(transaction, user.getKey()).getProperty("email"));
+      } catch (EntityNotFoundException e) {
+        // A new user has no old email.
+      }
+      if (oldEmail.isPresent() && !oldEmail.get().isEmpty() && !oldEmail.get().equals(email)) {
+        deleteUserEmail(transaction, oldEmail.get(), id);
+      }
+      if (email == null || email.isEmpty()) {
+        datastore.put(transaction, user);
+      } else {
+        datastore.put(transaction, Arrays.asList(user, createUserEmailEntity(email, id, nickname)));
+      }
+      transaction.commit();
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+    }
+
+    invalidateNickname(email);
+    oldEmail.ifPresent(UserInfoHelper::invalidateNickname);
+  }
+
+  /** Deletes the UserEmail entity of the given email if it still points to the given user. */
+  private static void deleteUserEmail(Transaction transaction, String email, String id) {
+    try {
+      Entity userEmail = datastore.get(transaction, getUserEmailKey(email));
+      if (id.equals(userEmail.getProperty("id"))) {
+        datastore.delete(transaction, userEmail.getKey());
+      }
+    } catch (EntityNotFoundException e) {
+      // Nothing to delete.
+    }
+  }
+
+  /**
+   * Returns the entity that lets the user with the given email be looked up by key. It must be
+   * stored together with the User entity whenever the user changes, see {@link #saveUser}.
+   */
+  public static Entity createUserEmailEntity(String email, String id, String nickname) {
+    Entity entity = new Entity(getUserEmailKey(email));
+    entity.setProperty("id", id);
+    entity.setProperty("nickname", nickname);
+    return entity;
+  }
+
+  /**
+   * Creates the email lookup entity of every existing User entity. This is needed once for users
+   * stored before the lookup entities were kept.
+   */
+  public static void migrateUserEmails() {
+    List<Entity> userEmailEntities = new ArrayList<>();
+    for (Entity user : datastore.prepare(new Query("User")).asIterable()) {
+      userEmailEntities.add(createUserEmailEntity((String) user.getProperty("email"),
+          (String) user.getProperty("id"), (String) user.getProperty("nickname")));
+      if (userEmailEntities.size() == MAX_ENTITIES_PER_PUT) {
+        datastore.put(userEmailEntities);
+        userEmailEntities.clear();
+      }
+    }
+    datastore.put(userEmailEntities);
+    nicknames.invalidateAll();
+  }
+
+  private static Key getUserEmailKey(String email) {
+    return KeyFactory.createKey("UserEmail", email);
+  }
+
+  /** Drops the cached nickname of the user with given email, e.g. after it was changed. */
+  public static void invalidateNickname(String email) {
+    nicknames.invalidate(email);
   }
 }
@@ -110,7 +110,10 @@ function fetchNextPageOfComments() {
  * Fetches comments with the given requirements.
  */
 function fetchComments(requirements, removeExisting = true) {
-  fetch('/comments' + getRequestParameter(requirements))
+  // Let the server attach the nickname of each author instead of fetching them one by one.
+  const parameters = new Map(requirements);
+  parameters.set('with-nicknames', 'true');
+  fetch('/comments' + getRequestParameter(parameters))
     .then(response => {
       if (!response.ok) {
         throw new Error(response.statusText);
@@ -178,13 +181,9 @@ function createCommentHeader(comment) {
   const header = document.createElement('div');
   header.className = 'comment-header';
   const usernameElement = document.createElement('span');
-  usernameElement.innerText = comment.userEmail;
+  usernameElement.innerText = comment.nickname ? comment.nickname : comment.userEmail;
   usernameElement.className = 'username';
 
-  fetchNicknameOfUser(comment.userEmail, 
-      (nickname) => {
-        usernameElement.innerText = nickname
-      });
   const timestampElement = document.createElement('span');
   timestampElement.innerText = (new Date(parseInt(comment.timestamp))).toLocaleString();
   timestampElement.className = 'timestamp';
@@ -231,17 +230,6 @@ function createElementForComment(comment) {
   return commentElement;
 }
 
-function fetchNicknameOfUser(email, completionHandler) {
-  fetch('/nickname?email=' + email)
-    .then(response => response.json())
-    .then(json => {
-      if (json.nickname == null) {
-        return;
-      }
-      completionHandler(json.nickname);
-    });
-}
-
 function deleteAllComments() {
   const request = new Request('/comments', { method: 'DELETE' });
   fetch(request).then(_ => {
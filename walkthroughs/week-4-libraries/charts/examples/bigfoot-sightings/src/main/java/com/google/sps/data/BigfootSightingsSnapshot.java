@@ -0,0 +1,128 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.data;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Scanner;
+
+/**
+ * Binary snapshot of the number of bigfoot sightings per year, written from the CSV file at build
+ * time so that the servlet can map it into memory instead of parsing the CSV on every start.
+ *
+ * <p>The snapshot is big-endian: the magic number, the number of years n, then n pairs of year and
+ * number of sightings, in the order of the CSV file.
+ */
+public class BigfootSightingsSnapshot {
+  private static final int MAGIC = 0x42494731; // "BIG1"
+  private static final int HEADER_BYTES = 2 * Integer.BYTES;
+  private static final int ENTRY_BYTES = 2 * Integer.BYTES;
+
+  /** Converts the CSV file at {@code args[0]} into a snapshot at {@code args[1]}. */
+  public static void main(String[] args) throws IOException {
+    LinkedHashMap<Integer, Integer> sightingsByYear;
+    try (InputStream csv = new FileInputStream(args[0])) {
+      sightingsByYear = parseCsv(csv);
+    }
+    Path snapshot = Paths.get(args[1]);
+    Files.createDirectories(snapshot.toAbsolutePath().getParent());
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(snapshot))) {
+      write(sightingsByYear, out);
+    }
+  }
+
+  /** Reads the number of sightings per year from CSV lines of the form {@code year,sightings}. */
+  public static LinkedHashMap<Integer, Integer> parseCsv(InputStream csv) {
+    LinkedHashMap<Integer, Integer> sightingsByYear = new LinkedHashMap<>();
+    Scanner scanner = new Scanner(csv);
+    while (scanner.hasNextLine()) {
+      String line = scanner.nextLine();
+      String[] cells = line.split(",");
+
+      Integer year = Integer.valueOf(cells[0]);
+      Integer sightings = Integer.valueOf(cells[1]);
+
+      sightingsByYear.put(year, sightings);
+    }
+    return sightingsByYear;
+  }
+
+  /** Writes the number of sightings per year as a snapshot. */
+  public static void write(Map<Integer, Integer> sightingsByYear, OutputStream out)
+      throws IOException {
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeInt(sightingsByYear.size());
+    for (Map.Entry<Integer, Integer> entry : sightingsByYear.entrySet()) {
+      data.writeInt(entry.getKey());
+      data.writeInt(entry.getValue());
+    }
+    data.flush();
+  }
+
+  /** Maps the snapshot file at {@code path} into memory and reads it. */
+  public static LinkedHashMap<Integer, Integer> map(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /** Reads a snapshot from a stream. */
+  public static LinkedHashMap<Integer, Integer> read(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return read(ByteBuffer.wrap(out.toByteArray()));
+  }
+
+  /**
+   * Reads the snapshot filling {@code buffer}.
+   *
+   * @throws IllegalArgumentException if the buffer doesn't hold a snapshot
+   */
+  public static LinkedHashMap<Integer, Integer> read(ByteBuffer buffer) {
+    if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+      throw new IllegalArgumentException("Not a bigfoot sightings snapshot");
+    }
+    int size = buffer.getInt(Integer.BYTES);
+    if (buffer.limit() != HEADER_BYTES + (long) size * ENTRY_BYTES) {
+      throw new IllegalArgumentException("Bigfoot sightings snapshot has the wrong size");
+    }
+
+    LinkedHashMap<Integer, Integer> sightingsByYear = new LinkedHashMap<>();
+    for (int i = 0; i < size; i++) {
+      int offset = HEADER_BYTES + i * ENTRY_BYTES;
+      sightingsByYear.put(buffer.getInt(offset), buffer.getInt(offset + Integer.BYTES));
+    }
+    return sightingsByYear;
+  }
+}
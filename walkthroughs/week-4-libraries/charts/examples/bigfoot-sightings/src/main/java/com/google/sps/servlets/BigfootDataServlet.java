@@ -15,41 +15,75 @@
 package com.google.sps.servlets;
 
 import com.google.gson.Gson;
+import com.google.sps.data.BigfootSightingsSnapshot;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.LinkedHashMap;
-import java.util.Scanner;
+import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-/** Returns bigfoot data as a JSON object, e.g. {"2017": 52, "2018": 34}] */
+/**
+ * Returns bigfoot data as a JSON object, e.g. {"2017": 52, "2018": 34}]. The data never changes, so
+ * the response is serialized once and cached by clients.
+ */
 @WebServlet("/bigfoot-data")
 public class BigfootDataServlet extends HttpServlet {
 
+  private static final String CSV = "/WEB-INF/bigfoot-sightings-by-year.csv";
+
+  // Written from the CSV file by the build, see pom.xml.
+  private static final String SNAPSHOT = "/WEB-INF/bigfoot-sightings-by-year.bin";
+
   private LinkedHashMap<Integer, Integer> bigfootSightings = new LinkedHashMap<>();
+  private CachedJsonResponse bigfootSightingsResponse;
 
   @Override
-  public void init() {
-    Scanner scanner = new Scanner(getServletContext().getResourceAsStream(
-        "/WEB-INF/bigfoot-sightings-by-year.csv"));
-    while (scanner.hasNextLine()) {
-      String line = scanner.nextLine();
-      String[] cells = line.split(",");
+  public void init() throws ServletException {
+    try {
+      bigfootSightings = loadBigfootSightings();
+    } catch (IOException e) {
+      throw new ServletException("Could not read bigfoot data", e);
+    }
+
+    Gson gson = new Gson();
+    bigfootSightingsResponse =
+        new CachedJsonResponse(gson.toJson(bigfootSightings) + "\n", System.currentTimeMillis());
+  }
 
-      Integer year = Integer.valueOf(cells[0]);
-      Integer sightings = Integer.valueOf(cells[1]);
+  /**
+   * Maps the snapshot of the bigfoot data into memory if the app runs from an exploded war, or else
+   * reads it. Falls back to parsing the CSV file if there is no snapshot, e.g. when the app was not
+   * built with Maven.
+   */
+  private LinkedHashMap<Integer, Integer> loadBigfootSightings() throws IOException {
+    String snapshotPath = getServletContext().getRealPath(SNAPSHOT);
+    if (snapshotPath != null) {
+      Path snapshot = Paths.get(snapshotPath);
+      if (Files.isRegularFile(snapshot)) {
+        return BigfootSightingsSnapshot.map(snapshot);
+      }
+    }
 
-      bigfootSightings.put(year, sightings);
+    InputStream snapshot = getServletContext().getResourceAsStream(SNAPSHOT);
+    if (snapshot != null) {
+      try (InputStream in = snapshot) {
+        return BigfootSightingsSnapshot.read(in);
+      }
+    }
+
+    try (InputStream csv = getServletContext().getResourceAsStream(CSV)) {
+      return BigfootSightingsSnapshot.parseCsv(csv);
     }
-    scanner.close();
   }
 
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    response.setContentType("application/json");
-    Gson gson = new Gson();
-    String json = gson.toJson(bigfootSightings);
-    response.getWriter().println(json);
+    bigfootSightingsResponse.send(request, response);
   }
 }
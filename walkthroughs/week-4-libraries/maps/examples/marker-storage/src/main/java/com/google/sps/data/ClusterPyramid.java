@@ -0,0 +1,179 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Clusters of points for the zoomed out levels of the map. At each zoom level the map is divided
+ * into square cells of {@code CELL_PIXELS} screen pixels, and all points in a cell form one
+ * cluster. A viewport therefore never holds more clusters than it has cells, no matter how many
+ * points there are. Adding a point updates one cluster per precomputed zoom level.
+ *
+ * <p>Only zoom levels up to {@code MAX_PRECOMPUTED_ZOOM} are kept, since finer levels would need
+ * about one cell per point each. Zoomed in further, a viewport only shows a small part of the
+ * points, which {@link #cluster} groups on the fly.
+ */
+public class ClusterPyramid {
+  /** The highest zoom level of the map. */
+  public static final int MAX_ZOOM = 20;
+
+  /** The highest zoom level whose clusters are kept. */
+  public static final int MAX_PRECOMPUTED_ZOOM = 8;
+
+  private static final int TILE_PIXELS = 256;
+  private static final int CELL_PIXELS = 64;
+
+  // The map projection can't show latitudes beyond this.
+  private static final double MAX_LAT = 85.05112878;
+
+  // For each precomputed zoom level, maps the index of each cell that has points to the sum of
+  // its points.
+  private final List<Map<Long, CellSum>> levels = new ArrayList<>();
+
+  public ClusterPyramid() {
+    for (int zoom = 0; zoom <= MAX_PRECOMPUTED_ZOOM; zoom++) {
+      levels.add(new HashMap<>());
+    }
+  }
+
+  /** Adds a point to the cluster of its cell on every precomputed zoom level. */
+  public synchronized void add(double lat, double lng) {
+    for (int zoom = 0; zoom <= MAX_PRECOMPUTED_ZOOM; zoom++) {
+      levels.get(zoom).computeIfAbsent(toCell(lat, lng, zoom), key -> new CellSum()).add(lat, lng);
+    }
+  }
+
+  /**
+   * Returns the clusters at {@code zoom} whose cells overlap the box from south-west to north-east
+   * corner. If west is greater than east, the box crosses the antimeridian. Zoom levels above
+   * {@code MAX_PRECOMPUTED_ZOOM} return the clusters of that level; use {@link #cluster} for them
+   * instead.
+   */
+  public synchronized List<Cluster> find(
+      int zoom, double south, double west, double north, double east) {
+    zoom = Math.max(0, Math.min(zoom, MAX_PRECOMPUTED_ZOOM));
+    List<Cluster> found = new ArrayList<>();
+    if (west <= east) {
+      find(zoom, south, west, north, east, found);
+    } else {
+      find(zoom, south, west, north, 180, found);
+      find(zoom, south, -180, north, east, found);
+    }
+    return found;
+  }
+
+  /**
+   * Groups {@code points} into the clusters of their cells at {@code zoom}, for zoom levels that
+   * are not precomputed. The points are typically the ones inside the viewport.
+   */
+  public static <T> List<Cluster> cluster(int zoom, Collection<T> points,
+      ToDoubleFunction<T> latOfPoint, ToDoubleFunction<T> lngOfPoint) {
+    zoom = Math.max(0, Math.min(zoom, MAX_ZOOM));
+    Map<Long, CellSum> cells = new HashMap<>();
+    for (T point : points) {
+      double lat = latOfPoint.applyAsDouble(point);
+      double lng = lngOfPoint.applyAsDouble(point);
+      cells.computeIfAbsent(toCell(lat, lng, zoom), key -> new CellSum()).add(lat, lng);
+    }
+
+    List<Cluster> clusters = new ArrayList<>();
+    for (CellSum cell : cells.values()) {
+      clusters.add(cell.toCluster());
+    }
+    return clusters;
+  }
+
+  private void find(
+      int zoom, double south, double west, double north, double east, List<Cluster> found) {
+    long cellsPerSide = cellsPerSide(zoom);
+    long minX = toCell(projectLng(west), cellsPerSide);
+    long maxX = toCell(projectLng(east), cellsPerSide);
+    // The projected y grows towards the south.
+    long minY = toCell(projectLat(north), cellsPerSide);
+    long maxY = toCell(projectLat(south), cellsPerSide);
+
+    Map<Long, CellSum> level = levels.get(zoom);
+    if ((maxX - minX + 1) * (maxY - minY + 1) > level.size()) {
+      // The box covers more cells than have points, so look at the cells with points instead.
+      for (Map.Entry<Long, CellSum> cell : level.entrySet()) {
+        long x = cell.getKey() % cellsPerSide;
+        long y = cell.getKey() / cellsPerSide;
+        if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+          found.add(cell.getValue().toCluster());
+        }
+      }
+      return;
+    }
+
+    for (long y = minY; y <= maxY; y++) {
+      for (long x = minX; x <= maxX; x++) {
+        CellSum cell = level.get(y * cellsPerSide + x);
+        if (cell != null) {
+          found.add(cell.toCluster());
+        }
+      }
+    }
+  }
+
+  /** Returns the index of the cell of a point at {@code zoom}. */
+  private static long toCell(double lat, double lng, int zoom) {
+    long cellsPerSide = cellsPerSide(zoom);
+    return toCell(projectLat(lat), cellsPerSide) * cellsPerSide
+        + toCell(projectLng(lng), cellsPerSide);
+  }
+
+  private static long cellsPerSide(int zoom) {
+    return (TILE_PIXELS / CELL_PIXELS) * (1L << zoom);
+  }
+
+  private static long toCell(double projected, long cellsPerSide) {
+    return Math.max(0, Math.min((long) (projected * cellsPerSide), cellsPerSide - 1));
+  }
+
+  /** Projects a longitude to the Web Mercator x coordinate in [0, 1]. */
+  private static double projectLng(double lng) {
+    return (lng + 180) / 360;
+  }
+
+  /** Projects a latitude to the Web Mercator y coordinate in [0, 1], which is 0 in the north. */
+  private static double projectLat(double lat) {
+    double radians = Math.toRadians(Math.max(-MAX_LAT, Math.min(lat, MAX_LAT)));
+    return 0.5 - Math.log(Math.tan(Math.PI / 4 + radians / 2)) / (2 * Math.PI);
+  }
+
+  /** The sum of the points in a cell, from which the centroid of its cluster is computed. */
+  private static class CellSum {
+    private double latSum;
+    private double lngSum;
+    private int count;
+
+    void add(double lat, double lng) {
+      latSum += lat;
+      lngSum += lng;
+      count++;
+    }
+
+    Cluster toCluster() {
+      return new Cluster(latSum / count, lngSum / count, count);
+    }
+  }
+}
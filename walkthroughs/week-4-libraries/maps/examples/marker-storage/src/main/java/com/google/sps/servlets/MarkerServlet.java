@@ -19,6 +19,10 @@ import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
 import com.google.appengine.api.datastore.PreparedQuery;
 import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.Query.CompositeFilterOperator;
+import com.google.appengine.api.datastore.Query.FilterOperator;
+import com.google.appengine.api.datastore.Query.FilterPredicate;
+import com.google.sps.data.ClusterPyramid;
 import com.google.sps.data.Marker;
 import com.google.gson.Gson;
 import java.io.IOException;
@@ -35,12 +39,58 @@ import org.jsoup.safety.Whitelist;
 @WebServlet("/markers")
 public class MarkerServlet extends HttpServlet {
 
-  /** Responds with a JSON array containing marker data. */
+  /**
+   * How long the clusters are used before they are rebuilt from Datastore, which bounds how long
+   * markers posted to other instances are missing from them.
+   */
+  private static final long MAX_CLUSTERS_AGE_MILLIS = 60 * 1000;
+
+  /**
+   * Clusters of all markers for the zoomed out levels of the map. Built from Datastore when first
+   * needed and again once they are older than {@code MAX_CLUSTERS_AGE_MILLIS}. In between, markers
+   * posted to this instance are added to them. Guarded by this servlet's lock.
+   */
+  private ClusterPyramid markerClusters;
+  private long markerClustersBuiltAt;
+
+  /**
+   * Responds with a JSON array containing marker data. With a {@code bbox=south,west,north,east}
+   * parameter, only the markers inside that box are returned. With a {@code zoom} parameter as
+   * well, responds with the clusters of markers in that box for that zoom level instead, e.g.
+   * [{"lat": 38.5949, "lng": -94.8923, "count": 3}].
+   */
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    response.setContentType("application/json");
+    Collection<?> markers;
+    String bbox = request.getParameter("bbox");
+    String zoom = request.getParameter("zoom");
+    if (bbox == null) {
+      markers = getMarkers();
+    } else {
+      String[] corners = bbox.split(",");
+      try {
+        double south = Double.parseDouble(corners[0]);
+        double west = Double.parseDouble(corners[1]);
+        double north = Double.parseDouble(corners[2]);
+        double east = Double.parseDouble(corners[3]);
+        if (zoom == null) {
+          markers = getMarkers(south, west, north, east);
+        } else if (Integer.parseInt(zoom) <= ClusterPyramid.MAX_PRECOMPUTED_ZOOM) {
+          markers =
+              getMarkerClusters().find(Integer.parseInt(zoom), south, west, north, east);
+        } else {
+          // Zoomed in this far, few enough markers are visible to cluster them on the fly.
+          markers = ClusterPyramid.cluster(Integer.parseInt(zoom),
+              getMarkers(south, west, north, east), Marker::getLat, Marker::getLng);
+        }
+      } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+            "bbox must be south,west,north,east and zoom a whole number");
+        return;
+      }
+    }
 
-    Collection<Marker> markers = getMarkers();
+    response.setContentType("application/json");
     Gson gson = new Gson();
     String json = gson.toJson(markers);
 
@@ -55,15 +105,57 @@ public class MarkerServlet extends HttpServlet {
     String content = Jsoup.clean(request.getParameter("content"), Whitelist.none());
 
     Marker marker = new Marker(lat, lng, content);
-    storeMarker(marker);
+    // Store and add the marker under the lock that building the clusters takes, so that clusters
+    // built from a Datastore that already has the marker don't get it added a second time.
+    synchronized (this) {
+      storeMarker(marker);
+      if (markerClusters != null) {
+        markerClusters.add(marker.getLat(), marker.getLng());
+      }
+    }
+  }
+
+  /** Returns the clusters of all markers, building them from Datastore if they are too old. */
+  private synchronized ClusterPyramid getMarkerClusters() {
+    long now = System.currentTimeMillis();
+    if (markerClusters == null || now - markerClustersBuiltAt > MAX_CLUSTERS_AGE_MILLIS) {
+      markerClusters = new ClusterPyramid();
+      for (Marker marker : getMarkers()) {
+        markerClusters.add(marker.getLat(), marker.getLng());
+      }
+      markerClustersBuiltAt = now;
+    }
+    return markerClusters;
   }
 
   /** Fetches markers from Datastore. */
   private Collection<Marker> getMarkers() {
+    return getMarkers(new Query("Marker"));
+  }
+
+  /**
+   * Fetches the markers inside the box from south-west to north-east corner from Datastore. If
+   * west is greater than east, the box crosses the antimeridian.
+   */
+  private Collection<Marker> getMarkers(double south, double west, double north, double east) {
+    // Datastore only allows inequality filters on one property, so the query only reads the
+    // markers between south and north, and the longitude is checked here.
+    Query query = new Query("Marker").setFilter(CompositeFilterOperator.and(
+        new FilterPredicate("lat", FilterOperator.GREATER_THAN_OR_EQUAL, south),
+        new FilterPredicate("lat", FilterOperator.LESS_THAN_OR_EQUAL, north)));
+    Collection<Marker> markers = getMarkers(query);
+    if (west <= east) {
+      markers.removeIf(marker -> marker.getLng() < west || marker.getLng() > east);
+    } else {
+      markers.removeIf(marker -> marker.getLng() < west && marker.getLng() > east);
+    }
+    return markers;
+  }
+
+  private Collection<Marker> getMarkers(Query query) {
     Collection<Marker> markers = new ArrayList<>();
 
     DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-    Query query = new Query("Marker");
     PreparedQuery results = datastore.prepare(query);
 
     for (Entity entity : results.asIterable()) {
@@ -17,6 +17,12 @@ let map;
 /* Editable marker that displays when a user clicks in the map. */
 let editMarker;
 
+/* Below this zoom level, markers are shown as clusters. */
+const MIN_ZOOM_FOR_MARKERS = 10;
+
+/* Markers and clusters currently on the map. */
+let displayedMarkers = [];
+
 /** Creates a map that allows users to add markers. */
 function createMap() {
   map = new google.maps.Map(
@@ -29,22 +35,78 @@ function createMap() {
     createMarkerForEdit(event.latLng.lat(), event.latLng.lng());
   });
 
-  fetchMarkers();
+  // Show individual markers when zoomed in and clusters otherwise, whenever the
+  // map stops moving.
+  map.addListener('idle', () => {
+    if (map.getZoom() >= MIN_ZOOM_FOR_MARKERS) {
+      fetchMarkers();
+    } else {
+      fetchClusters();
+    }
+  });
+}
+
+/**
+ * Returns the visible part of the map as a bbox parameter for the backend, in
+ * the form south,west,north,east.
+ */
+function getVisibleBbox() {
+  const bounds = map.getBounds();
+  const southWest = bounds.getSouthWest();
+  const northEast = bounds.getNorthEast();
+  return [southWest.lat(), southWest.lng(), northEast.lat(), northEast.lng()]
+      .join(',');
 }
 
-/** Fetches markers from the backend and adds them to the map. */
+/**
+ * Fetches the markers in the visible part of the map from the backend and adds
+ * them to the map.
+ */
 function fetchMarkers() {
-  fetch('/markers').then(response => response.json()).then((markers) => {
-    markers.forEach(
-        (marker) => {
-            createMarkerForDisplay(marker.lat, marker.lng, marker.content)});
-  });
+  fetch('/markers?bbox=' + getVisibleBbox())
+      .then(response => response.json())
+      .then((markers) => {
+        clearDisplayedMarkers();
+        markers.forEach(
+            (marker) => {
+                createMarkerForDisplay(marker.lat, marker.lng, marker.content)});
+      });
+}
+
+/**
+ * Fetches the clusters of markers in the visible part of the map from the
+ * backend and adds them to the map, labeled with their number of markers.
+ */
+function fetchClusters() {
+  fetch('/markers?bbox=' + getVisibleBbox() + '&zoom=' + map.getZoom())
+      .then(response => response.json())
+      .then((clusters) => {
+        clearDisplayedMarkers();
+        clusters.forEach((cluster) => {
+          const position = {lat: cluster.lat, lng: cluster.lng};
+          const marker = new google.maps.Marker(
+              {position: position, map: map, label: String(cluster.count)});
+          // Zoom in on the cluster when clicked.
+          marker.addListener('click', () => {
+            map.setCenter(position);
+            map.setZoom(map.getZoom() + 2);
+          });
+          displayedMarkers.push(marker);
+        });
+      });
+}
+
+/** Removes all markers and clusters from the map. */
+function clearDisplayedMarkers() {
+  displayedMarkers.forEach((marker) => marker.setMap(null));
+  displayedMarkers = [];
 }
 
 /** Creates a marker that shows a read-only info window when clicked. */
 function createMarkerForDisplay(lat, lng, content) {
   const marker =
       new google.maps.Marker({position: {lat: lat, lng: lng}, map: map});
+  displayedMarkers.push(marker);
 
   const infoWindow = new google.maps.InfoWindow({content: content});
   marker.addListener('click', () => {
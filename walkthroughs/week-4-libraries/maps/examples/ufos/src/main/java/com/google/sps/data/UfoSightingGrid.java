@@ -0,0 +1,104 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spatial index of UFO sightings. The world is divided into cells of one degree latitude by one
+ * degree longitude, and each sighting is stored in the cell it falls in. Finding the sightings in a
+ * viewport only looks at the cells the viewport covers instead of at every sighting.
+ */
+public class UfoSightingGrid {
+  private static final int LAT_CELLS = 180;
+  private static final int LNG_CELLS = 360;
+
+  private final UfoSightingStore store;
+
+  // The indices into the store of the sightings in cell c are sightings[cellStarts[c]] up to
+  // sightings[cellStarts[c + 1]].
+  private final int[] cellStarts = new int[LAT_CELLS * LNG_CELLS + 1];
+  private final int[] sightings;
+
+  public UfoSightingGrid(UfoSightingStore store) {
+    this.store = store;
+
+    int[] cellOfSighting = new int[store.size()];
+    for (int i = 0; i < store.size(); i++) {
+      cellOfSighting[i] = latCell(store.getLat(i)) * LNG_CELLS + lngCell(store.getLng(i));
+      cellStarts[cellOfSighting[i] + 1]++;
+    }
+    for (int cell = 0; cell < LAT_CELLS * LNG_CELLS; cell++) {
+      cellStarts[cell + 1] += cellStarts[cell];
+    }
+
+    sightings = new int[store.size()];
+    int[] nextInCell = cellStarts.clone();
+    for (int i = 0; i < store.size(); i++) {
+      sightings[nextInCell[cellOfSighting[i]]++] = i;
+    }
+  }
+
+  /** Returns the number of sightings in the grid. */
+  public int size() {
+    return sightings.length;
+  }
+
+  /**
+   * Returns the sightings inside the box from south-west to north-east corner. If west is greater
+   * than east, the box crosses the antimeridian.
+   */
+  public List<UfoSighting> find(double south, double west, double north, double east) {
+    List<UfoSighting> found = new ArrayList<>();
+    if (west <= east) {
+      find(south, west, north, east, found);
+    } else {
+      find(south, west, north, 180, found);
+      find(south, -180, north, east, found);
+    }
+    return found;
+  }
+
+  private void find(
+      double south, double west, double north, double east, List<UfoSighting> found) {
+    for (int latCell = latCell(south); latCell <= latCell(north); latCell++) {
+      for (int lngCell = lngCell(west); lngCell <= lngCell(east); lngCell++) {
+        int cell = latCell * LNG_CELLS + lngCell;
+        for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+          double lat = store.getLat(sightings[i]);
+          double lng = store.getLng(sightings[i]);
+          // Cells on the edge of the box are only partly inside it.
+          if (lat >= south && lat <= north && lng >= west && lng <= east) {
+            found.add(new UfoSighting(lat, lng));
+          }
+        }
+      }
+    }
+  }
+  private static int latCell(double lat) {
+    return clamp((int) Math.floor(lat + 90), LAT_CELLS);
+  }
+
+  private static int lngCell(double lng) {
+    return clamp((int) Math.floor(lng + 180), LNG_CELLS);
+  }
+
+  /** Keeps coordinates on (or past) the edge of the map in the outermost cell. */
+  private static int clamp(int cell, int cells) {
+    return Math.max(0, Math.min(cell, cells - 1));
+  }
+}
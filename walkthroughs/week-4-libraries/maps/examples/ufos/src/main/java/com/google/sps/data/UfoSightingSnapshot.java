@@ -0,0 +1,105 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.data;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary snapshot of a {@link UfoSightingStore}, written from the CSV file at build time so that
+ * the servlet can map it into memory instead of parsing the CSV on every start.
+ *
+ * <p>The snapshot is big-endian: the magic number, the number of sightings n, then n latitudes
+ * followed by n longitudes.
+ */
+public class UfoSightingSnapshot {
+  private static final int MAGIC = 0x55464f31; // "UFO1"
+  private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+  /** Converts the CSV file at {@code args[0]} into a snapshot at {@code args[1]}. */
+  public static void main(String[] args) throws IOException {
+    UfoSightingStore store;
+    try (InputStream csv = new FileInputStream(args[0])) {
+      store = UfoSightingStore.parseCsv(csv);
+    }
+    Path snapshot = Paths.get(args[1]);
+    Files.createDirectories(snapshot.toAbsolutePath().getParent());
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(snapshot))) {
+      write(store, out);
+    }
+  }
+
+  /** Writes {@code store} as a snapshot. */
+  public static void write(UfoSightingStore store, OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeInt(store.size());
+    for (int i = 0; i < store.size(); i++) {
+      data.writeDouble(store.getLat(i));
+    }
+    for (int i = 0; i < store.size(); i++) {
+      data.writeDouble(store.getLng(i));
+    }
+    data.flush();
+  }
+
+  /** Maps the snapshot file at {@code path} into memory and returns a store backed by it. */
+  public static UfoSightingStore map(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      // The mapping stays valid after the channel is closed.
+      return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /** Reads a snapshot into a buffer on the heap and returns a store backed by it. */
+  public static UfoSightingStore read(InputStream in) throws IOException {
+    return read(ByteBuffer.wrap(UfoSightingStore.readAll(in)));
+  }
+
+  /**
+   * Returns a store backed by the snapshot filling {@code buffer}, without copying it.
+   *
+   * @throws IllegalArgumentException if the buffer doesn't hold a snapshot
+   */
+  public static UfoSightingStore read(ByteBuffer buffer) {
+    if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+      throw new IllegalArgumentException("Not a UFO sighting snapshot");
+    }
+    int size = buffer.getInt(Integer.BYTES);
+    if (buffer.limit() != HEADER_BYTES + 2L * size * Double.BYTES) {
+      throw new IllegalArgumentException("UFO sighting snapshot has the wrong size");
+    }
+
+    buffer.position(HEADER_BYTES);
+    DoubleBuffer doubles = buffer.slice().asDoubleBuffer();
+    DoubleBuffer lats = doubles.duplicate();
+    lats.limit(size);
+    DoubleBuffer lngs = doubles.duplicate();
+    lngs.position(size);
+    return new UfoSightingStore(lats, lngs);
+  }
+}
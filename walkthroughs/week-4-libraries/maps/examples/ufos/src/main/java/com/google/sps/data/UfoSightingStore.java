@@ -0,0 +1,195 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.DoubleBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * UFO sightings stored as two parallel arrays of latitudes and longitudes instead of one object per
+ * sighting. A sighting is only turned into a {@link UfoSighting} when it is read. The arrays can
+ * also be buffers outside the heap, such as a memory-mapped {@link UfoSightingSnapshot}.
+ */
+public class UfoSightingStore {
+  // Powers of ten that are exact as doubles, so dividing by them rounds correctly.
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  // Larger mantissas are not always exact as doubles.
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+  private final DoubleBuffer lats;
+  private final DoubleBuffer lngs;
+
+  public UfoSightingStore(double[] lats, double[] lngs) {
+    this(DoubleBuffer.wrap(lats), DoubleBuffer.wrap(lngs));
+  }
+
+  /** Creates a store backed by the doubles from position to limit of each buffer. */
+  public UfoSightingStore(DoubleBuffer lats, DoubleBuffer lngs) {
+    if (lats.remaining() != lngs.remaining()) {
+      throw new IllegalArgumentException("lats and lngs must have the same length");
+    }
+    this.lats = lats.slice();
+    this.lngs = lngs.slice();
+  }
+
+  /**
+   * Reads sightings from CSV lines of the form {@code lat,lng}. Blank lines are skipped.
+   *
+   * @throws NumberFormatException if a line doesn't hold two numbers
+   */
+  public static UfoSightingStore parseCsv(InputStream in) throws IOException {
+    byte[] bytes = readAll(in);
+    double[] lats = new double[1024];
+    double[] lngs = new double[1024];
+    int size = 0;
+
+    int lineNumber = 0;
+    int lineStart = 0;
+    while (lineStart < bytes.length) {
+      lineNumber++;
+      int lineEnd = lineStart;
+      while (lineEnd < bytes.length && bytes[lineEnd] != '\n') {
+        lineEnd++;
+      }
+      int next = lineEnd + 1;
+      if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+        lineEnd--;
+      }
+
+      if (lineEnd > lineStart) {
+        int comma = lineStart;
+        while (comma < lineEnd && bytes[comma] != ',') {
+          comma++;
+        }
+        if (comma == lineEnd) {
+          throw new NumberFormatException("Line " + lineNumber + " has no comma");
+        }
+        int lngEnd = comma + 1;
+        while (lngEnd < lineEnd && bytes[lngEnd] != ',') {
+          lngEnd++;
+        }
+
+        if (size == lats.length) {
+          lats = Arrays.copyOf(lats, size * 2);
+          lngs = Arrays.copyOf(lngs, size * 2);
+        }
+        lats[size] = parseDouble(bytes, lineStart, comma);
+        lngs[size] = parseDouble(bytes, comma + 1, lngEnd);
+        size++;
+      }
+      lineStart = next;
+    }
+    return new UfoSightingStore(Arrays.copyOf(lats, size), Arrays.copyOf(lngs, size));
+  }
+
+  /** Returns the number of sightings. */
+  public int size() {
+    return lats.limit();
+  }
+
+  public double getLat(int index) {
+    return lats.get(index);
+  }
+
+  public double getLng(int index) {
+    return lngs.get(index);
+  }
+
+  /** Returns the sighting at {@code index}. */
+  public UfoSighting get(int index) {
+    return new UfoSighting(lats.get(index), lngs.get(index));
+  }
+
+  /** Returns a read-only view of all sightings, created one at a time as the list is read. */
+  public List<UfoSighting> asList() {
+    return new AbstractList<UfoSighting>() {
+      @Override
+      public UfoSighting get(int index) {
+        return UfoSightingStore.this.get(index);
+      }
+
+      @Override
+      public int size() {
+        return UfoSightingStore.this.size();
+      }
+    };
+  }
+
+  /**
+   * Parses a decimal number such as {@code -122.7144313} from {@code bytes[from, to)}. Numbers with
+   * an exponent or too many digits to parse exactly are left to {@link Double#parseDouble}.
+   */
+  static double parseDouble(byte[] bytes, int from, int to) {
+    int i = from;
+    boolean negative = false;
+    if (i < to && (bytes[i] == '-' || bytes[i] == '+')) {
+      negative = bytes[i] == '-';
+      i++;
+    }
+
+    long mantissa = 0;
+    int fractionDigits = 0;
+    boolean hasDigits = false;
+    boolean inFraction = false;
+    for (; i < to; i++) {
+      byte b = bytes[i];
+      if (b >= '0' && b <= '9') {
+        mantissa = mantissa * 10 + (b - '0');
+        hasDigits = true;
+        if (inFraction) {
+          fractionDigits++;
+        }
+        if (mantissa >= MAX_EXACT_MANTISSA || fractionDigits >= POWERS_OF_TEN.length) {
+          return parseSlowly(bytes, from, to);
+        }
+      } else if (b == '.' && !inFraction) {
+        inFraction = true;
+      } else {
+        return parseSlowly(bytes, from, to);
+      }
+    }
+    if (!hasDigits) {
+      return parseSlowly(bytes, from, to);
+    }
+
+    double value = mantissa / POWERS_OF_TEN[fractionDigits];
+    return negative ? -value : value;
+  }
+
+  private static double parseSlowly(byte[] bytes, int from, int to) {
+    return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+  }
+
+  static byte[] readAll(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,156 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A JSON response that never changes, serialized and compressed once so that every request only
+ * copies bytes. Responses carry an ETag and a Last-Modified date, and requests that already have
+ * the response cached get a 304 Not Modified without a body.
+ */
+public class CachedJsonResponse {
+  // Browsers and proxies may reuse the response for this long without asking again.
+  private static final String CACHE_CONTROL = "public, max-age=3600";
+
+  private final byte[] json;
+  private final byte[] gzippedJson;
+  private final String etag;
+  private final String gzipEtag;
+  private final long lastModified;
+
+  /**
+   * Creates a response with the given JSON, last modified at {@code lastModified} milliseconds
+   * since the epoch.
+   */
+  public CachedJsonResponse(String json, long lastModified) {
+    this.json = json.getBytes(StandardCharsets.UTF_8);
+    this.gzippedJson = gzip(this.json);
+    String hash = sha256(this.json);
+    // Each encoding of the response has its own strong ETag.
+    this.etag = "\"" + hash + "\"";
+    this.gzipEtag = "\"" + hash + "-gzip\"";
+    // HTTP dates have a precision of one second.
+    this.lastModified = lastModified / 1000 * 1000;
+  }
+
+  /** Sends the response, compressed if the client accepts gzip. */
+  public void send(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    boolean useGzip = acceptsGzip(request.getHeader("Accept-Encoding"));
+    response.setHeader("ETag", useGzip ? gzipEtag : etag);
+    response.setDateHeader("Last-Modified", lastModified);
+    response.setHeader("Cache-Control", CACHE_CONTROL);
+    response.setHeader("Vary", "Accept-Encoding");
+
+    if (isNotModified(request)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    byte[] body = useGzip ? gzippedJson : json;
+    response.setContentType("application/json;charset=UTF-8");
+    if (useGzip) {
+      response.setHeader("Content-Encoding", "gzip");
+    }
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+  /**
+   * Returns whether the client's cached copy is still current. If-None-Match takes precedence over
+   * If-Modified-Since, as HTTP requires.
+   */
+  private boolean isNotModified(HttpServletRequest request) {
+    String ifNoneMatch = request.getHeader("If-None-Match");
+    if (ifNoneMatch != null) {
+      for (String tag : ifNoneMatch.split(",")) {
+        tag = tag.trim();
+        // Proxies that change the response may turn strong ETags into weak ones.
+        if (tag.startsWith("W/")) {
+          tag = tag.substring(2);
+        }
+        if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    long ifModifiedSince;
+    try {
+      ifModifiedSince = request.getDateHeader("If-Modified-Since");
+    } catch (IllegalArgumentException e) {
+      // Dates that can't be parsed are ignored.
+      return false;
+    }
+    return ifModifiedSince != -1 && lastModified <= ifModifiedSince;
+  }
+
+  /** Returns whether an Accept-Encoding header allows gzip, e.g. "gzip, deflate, br". */
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      String name = parts[0].trim();
+      if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+        continue;
+      }
+      for (int i = 1; i < parts.length; i++) {
+        String parameter = parts[i].replace(" ", "");
+        if (parameter.matches("q=0(\\.0*)?")) {
+          // The client explicitly refuses gzip.
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private static byte[] gzip(byte[] bytes) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (OutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    } catch (IOException e) {
+      // Writing to memory doesn't fail.
+      throw new IllegalStateException(e);
+    }
+    return out.toByteArray();
+  }
+
+  private static String sha256(byte[] bytes) {
+    try {
+      StringBuilder hex = new StringBuilder();
+      for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform supports SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -14,45 +14,150 @@
 
 package com.google.sps.servlets;
 
+import com.google.sps.data.ClusterPyramid;
 import com.google.sps.data.UfoSighting;
+import com.google.sps.data.UfoSightingGrid;
+import com.google.sps.data.UfoSightingSnapshot;
+import com.google.sps.data.UfoSightingStore;
 import com.google.gson.Gson;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collection;
-import java.util.Scanner;
+import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-/** Returns UFO data as a JSON array, e.g. [{"lat": 38.4404675, "lng": -122.7144313}] */
+/**
+ * Returns UFO data as a JSON array, e.g. [{"lat": 38.4404675, "lng": -122.7144313}]. With a
+ * {@code bbox=south,west,north,east} parameter, only the sightings inside that box are returned.
+ * With a {@code zoom} parameter as well, the sightings are returned as clusters for that zoom
+ * level, e.g. [{"lat": 38.4404675, "lng": -122.7144313, "count": 12}]. The response for all
+ * sightings is serialized once and cached by clients.
+ *
+ * <p>Starting the servlet only maps the snapshot of the sightings. The indexes and the response for
+ * all sightings each cost a pass over every sighting, so they are built by the first request that
+ * needs them.
+ */
 @WebServlet("/ufo-data")
 public class UfoDataServlet extends HttpServlet {
 
-  private Collection<UfoSighting> ufoSightings;
+  private static final String CSV = "/WEB-INF/ufo-data.csv";
+
+  // Written from the CSV file by the build, see pom.xml.
+  private static final String SNAPSHOT = "/WEB-INF/ufo-data.bin";
+
+  private UfoSightingStore ufoSightings;
+  private long ufoSightingsLoadedAt;
+
+  // Built on first use, see the class comment.
+  private UfoSightingGrid ufoSightingGrid;
+  private ClusterPyramid ufoSightingClusters;
+  // The response for all sightings, which never changes.
+  private CachedJsonResponse allUfoSightingsResponse;
 
   @Override
-  public void init() {
-    ufoSightings = new ArrayList<>();
+  public void init() throws ServletException {
+    try {
+      ufoSightings = loadUfoSightings();
+    } catch (IOException e) {
+      throw new ServletException("Could not read UFO data", e);
+    }
+    ufoSightingsLoadedAt = System.currentTimeMillis();
+  }
+
+  private synchronized UfoSightingGrid getUfoSightingGrid() {
+    if (ufoSightingGrid == null) {
+      ufoSightingGrid = new UfoSightingGrid(ufoSightings);
+    }
+    return ufoSightingGrid;
+  }
+
+  private synchronized ClusterPyramid getUfoSightingClusters() {
+    if (ufoSightingClusters == null) {
+      ufoSightingClusters = new ClusterPyramid();
+      for (int i = 0; i < ufoSightings.size(); i++) {
+        ufoSightingClusters.add(ufoSightings.getLat(i), ufoSightings.getLng(i));
+      }
+    }
+    return ufoSightingClusters;
+  }
 
-    Scanner scanner = new Scanner(getServletContext().getResourceAsStream("/WEB-INF/ufo-data.csv"));
-    while (scanner.hasNextLine()) {
-      String line = scanner.nextLine();
-      String[] cells = line.split(",");
+  private synchronized CachedJsonResponse getAllUfoSightingsResponse() {
+    if (allUfoSightingsResponse == null) {
+      Gson gson = new Gson();
+      allUfoSightingsResponse = new CachedJsonResponse(
+          gson.toJson(ufoSightings.asList()) + "\n", ufoSightingsLoadedAt);
+    }
+    return allUfoSightingsResponse;
+  }
+
+  /**
+   * Maps the snapshot of the UFO data into memory if the app runs from an exploded war, or else
+   * reads it. Falls back to parsing the CSV file if there is no snapshot, e.g. when the app was not
+   * built with Maven.
+   */
+  private UfoSightingStore loadUfoSightings() throws IOException {
+    String snapshotPath = getServletContext().getRealPath(SNAPSHOT);
+    if (snapshotPath != null) {
+      Path snapshot = Paths.get(snapshotPath);
+      if (Files.isRegularFile(snapshot)) {
+        return UfoSightingSnapshot.map(snapshot);
+      }
+    }
 
-      double lat = Double.parseDouble(cells[0]);
-      double lng = Double.parseDouble(cells[1]);
+    InputStream snapshot = getServletContext().getResourceAsStream(SNAPSHOT);
+    if (snapshot != null) {
+      try (InputStream in = snapshot) {
+        return UfoSightingSnapshot.read(in);
+      }
+    }
 
-      ufoSightings.add(new UfoSighting(lat, lng));
+    try (InputStream csv = getServletContext().getResourceAsStream(CSV)) {
+      return UfoSightingStore.parseCsv(csv);
     }
-    scanner.close();
   }
 
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    String bbox = request.getParameter("bbox");
+    if (bbox == null) {
+      getAllUfoSightingsResponse().send(request, response);
+      return;
+    }
+
+    Collection<?> visibleUfoSightings;
+    String[] corners = bbox.split(",");
+    try {
+      double south = Double.parseDouble(corners[0]);
+      double west = Double.parseDouble(corners[1]);
+      double north = Double.parseDouble(corners[2]);
+      double east = Double.parseDouble(corners[3]);
+      String zoom = request.getParameter("zoom");
+      if (zoom == null) {
+        visibleUfoSightings = getUfoSightingGrid().find(south, west, north, east);
+      } else if (Integer.parseInt(zoom) <= ClusterPyramid.MAX_PRECOMPUTED_ZOOM) {
+        visibleUfoSightings =
+            getUfoSightingClusters().find(Integer.parseInt(zoom), south, west, north, east);
+      } else {
+        // Zoomed in this far, few enough sightings are visible to cluster them on the fly.
+        visibleUfoSightings = ClusterPyramid.cluster(Integer.parseInt(zoom),
+            getUfoSightingGrid().find(south, west, north, east), UfoSighting::getLat,
+            UfoSighting::getLng);
+      }
+    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+          "bbox must be south,west,north,east and zoom a whole number");
+      return;
+    }
+
     response.setContentType("application/json");
     Gson gson = new Gson();
-    String json = gson.toJson(ufoSightings);
+    String json = gson.toJson(visibleUfoSightings);
     response.getWriter().println(json);
   }
 }
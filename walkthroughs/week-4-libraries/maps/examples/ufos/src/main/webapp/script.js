@@ -12,16 +12,48 @@
 // See the License for the specific language governing permissions and
 // limitations under the License.
 
-/** Fetches UFO sightings data from the server and displays it in a map. */
+/**
+ * Creates a map that shows the UFO sightings in the visible part of the map,
+ * grouped into clusters that fit the zoom level.
+ */
 function createUfoSightingsMap() {
-  fetch('/ufo-data').then(response => response.json()).then((ufoSightings) => {
-    const map = new google.maps.Map(
-        document.getElementById('map'),
-        {center: {lat: 35.78613674, lng: -119.4491591}, zoom: 7});
+  const map = new google.maps.Map(
+      document.getElementById('map'),
+      {center: {lat: 35.78613674, lng: -119.4491591}, zoom: 7});
 
-    ufoSightings.forEach((ufoSighting) => {
-      new google.maps.Marker(
-          {position: {lat: ufoSighting.lat, lng: ufoSighting.lng}, map: map});
-    });
+  let markers = [];
+  // Fetch the clusters again whenever the map stops moving.
+  map.addListener('idle', () => {
+    const bounds = map.getBounds();
+    const southWest = bounds.getSouthWest();
+    const northEast = bounds.getNorthEast();
+    const bbox = [southWest.lat(), southWest.lng(), northEast.lat(), northEast.lng()];
+
+    fetch('/ufo-data?bbox=' + bbox.join(',') + '&zoom=' + map.getZoom())
+        .then(response => response.json())
+        .then((clusters) => {
+          markers.forEach((marker) => marker.setMap(null));
+          markers = clusters.map((cluster) => createClusterMarker(map, cluster));
+        });
+  });
+}
+
+/**
+ * Creates a marker for a cluster of sightings, labeled with their number if
+ * there is more than one. Clicking it zooms in on the cluster.
+ */
+function createClusterMarker(map, cluster) {
+  const position = {lat: cluster.lat, lng: cluster.lng};
+  const marker = new google.maps.Marker({
+    position: position,
+    map: map,
+    label: cluster.count > 1 ? String(cluster.count) : null
   });
+  if (cluster.count > 1) {
+    marker.addListener('click', () => {
+      map.setCenter(position);
+      map.setZoom(map.getZoom() + 2);
+    });
+  }
+  return marker;
 }
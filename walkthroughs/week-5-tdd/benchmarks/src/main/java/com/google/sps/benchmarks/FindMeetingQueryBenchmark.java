@@ -0,0 +1,149 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.BusyMinuteMasks;
+import com.google.sps.BusyTimeIndex;
+import com.google.sps.ColumnarEventStore;
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the {@code FindMeetingQuery} engines on synthetic calendars. Run with
+ * {@code -prof gc} to also see the allocation rate of each engine.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FindMeetingQueryBenchmark {
+  private static final int NUMBER_OF_REQUESTS = 64;
+  private static final int MEETING_DURATION = 30;
+
+  @Param({"100", "10000", "100000"})
+  public int numberOfEvents;
+
+  @Param({"1", "5"})
+  public int attendeesPerEvent;
+
+  /** How many events each person attends on average. Higher means more overlapping events. */
+  @Param({"2", "20"})
+  public double eventsPerPerson;
+
+  @Param({"1", "10"})
+  public int attendeesPerRequest;
+
+  private List<Event> events;
+  private BusyTimeIndex busyTimeIndex;
+  private BusyMinuteMasks busyMinuteMasks;
+  private ColumnarEventStore columnarEventStore;
+  private MeetingRequest[] requests;
+  private MeetingRequest[] requestsWithOptionalAttendees;
+  private FindMeetingQuery query;
+  private FindMeetingQuery parallelQuery;
+  private int nextRequest;
+
+  @Setup
+  public void setUp() {
+    SyntheticCalendar calendar =
+        new SyntheticCalendar(42, numberOfEvents, attendeesPerEvent, eventsPerPerson);
+    events = calendar.events(numberOfEvents, attendeesPerEvent);
+    busyTimeIndex = BusyTimeIndex.of(events);
+    busyMinuteMasks = BusyMinuteMasks.of(events);
+    columnarEventStore = ColumnarEventStore.of(events);
+
+    requests = new MeetingRequest[NUMBER_OF_REQUESTS];
+    requestsWithOptionalAttendees = new MeetingRequest[NUMBER_OF_REQUESTS];
+    for (int i = 0; i < NUMBER_OF_REQUESTS; i++) {
+      requests[i] = calendar.request(attendeesPerRequest, 0, MEETING_DURATION);
+      requestsWithOptionalAttendees[i] =
+          calendar.request(attendeesPerRequest, attendeesPerRequest, MEETING_DURATION);
+    }
+    query = new FindMeetingQuery();
+    query.setParallelThreshold(Integer.MAX_VALUE);
+    parallelQuery = new FindMeetingQuery();
+    parallelQuery.setParallelThreshold(1);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> scanEvents() {
+    return query.query(events, nextRequest(requests));
+  }
+
+  @Benchmark
+  public Collection<TimeRange> scanEventsInParallel() {
+    return parallelQuery.query(events, nextRequest(requests));
+  }
+
+  @Benchmark
+  public Collection<TimeRange> busyTimeIndex() {
+    return query.query(busyTimeIndex, nextRequest(requests));
+  }
+
+  @Benchmark
+  public Collection<TimeRange> busyMinuteMasks() {
+    return query.query(busyMinuteMasks, nextRequest(requests));
+  }
+
+  @Benchmark
+  public Collection<TimeRange> columnarEventStore() {
+    return query.query(columnarEventStore, nextRequest(requests));
+  }
+
+  @Benchmark
+  public Collection<TimeRange> optionalAttendees() {
+    return query.queryWithOptionalAttendees(
+        busyTimeIndex, nextRequest(requestsWithOptionalAttendees));
+  }
+
+  @Benchmark
+  public BusyTimeIndex buildBusyTimeIndex() {
+    return BusyTimeIndex.of(events);
+  }
+
+  @Benchmark
+  public BusyMinuteMasks buildBusyMinuteMasks() {
+    return BusyMinuteMasks.of(events);
+  }
+
+  @Benchmark
+  public ColumnarEventStore buildColumnarEventStore() {
+    return ColumnarEventStore.of(events);
+  }
+
+  /** Cycles through the requests so that no single request is optimized for. */
+  private MeetingRequest nextRequest(MeetingRequest[] pool) {
+    nextRequest = (nextRequest + 1) % NUMBER_OF_REQUESTS;
+    return pool[nextRequest];
+  }
+}
@@ -0,0 +1,95 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates random but reproducible calendars and meeting requests for the benchmarks.
+ */
+public final class SyntheticCalendar {
+  private static final int SLOT_MINUTES = 15;
+  private static final int MAX_EVENT_SLOTS = 8;
+
+  private final Random random;
+  private final int numberOfPeople;
+
+  /**
+   * Creates a generator for a calendar of {@code numberOfEvents} events with
+   * {@code attendeesPerEvent} attendees each. The number of people is chosen so that each person
+   * attends {@code eventsPerPerson} events on average: the higher this is, the more each person's
+   * events overlap each other.
+   */
+  public SyntheticCalendar(
+      long seed, int numberOfEvents, int attendeesPerEvent, double eventsPerPerson) {
+    this.random = new Random(seed);
+    this.numberOfPeople = Math.max(attendeesPerEvent,
+        (int) Math.ceil(numberOfEvents * attendeesPerEvent / eventsPerPerson));
+  }
+
+  /**
+   * Returns the number of distinct people in the calendar.
+   */
+  public int getNumberOfPeople() {
+    return numberOfPeople;
+  }
+
+  /**
+   * Returns {@code numberOfEvents} random events. Events start on a 15 minute boundary and last
+   * between 15 minutes and 2 hours.
+   */
+  public List<Event> events(int numberOfEvents, int attendeesPerEvent) {
+    List<Event> events = new ArrayList<>(numberOfEvents);
+    int slotsPerDay = TimeRange.WHOLE_DAY.duration() / SLOT_MINUTES;
+    for (int i = 0; i < numberOfEvents; i++) {
+      int slots = 1 + random.nextInt(MAX_EVENT_SLOTS);
+      int start = random.nextInt(slotsPerDay - slots + 1) * SLOT_MINUTES;
+      TimeRange when = TimeRange.fromStartDuration(start, slots * SLOT_MINUTES);
+      events.add(new Event("Event " + i, when, people(attendeesPerEvent)));
+    }
+    return events;
+  }
+
+  /**
+   * Returns a meeting request for {@code numberOfAttendees} random required attendees and
+   * {@code numberOfOptionalAttendees} random optional attendees.
+   */
+  public MeetingRequest request(int numberOfAttendees, int numberOfOptionalAttendees, int duration) {
+    MeetingRequest request = new MeetingRequest(people(numberOfAttendees), duration);
+    for (String attendee : people(numberOfOptionalAttendees)) {
+      request.addOptionalAttendee(attendee);
+    }
+    return request;
+  }
+
+  private Set<String> people(int count) {
+    Set<String> people = new HashSet<>();
+    while (people.size() < Math.min(count, numberOfPeople)) {
+      people.add(person(random.nextInt(numberOfPeople)));
+    }
+    return people;
+  }
+
+  private static String person(int id) {
+    return "Person " + id;
+  }
+}
@@ -0,0 +1,154 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps attendee names to dense int ids, starting at zero in the order the names are first seen.
+ * Once attendees are ids, a group of them can be stored as a sorted {@code int[]} or as a bit set,
+ * and checking whether two groups share someone no longer hashes any string.
+ *
+ * <p>A dictionary only grows, so it belongs to the store whose events it interns, such as a
+ * {@link ColumnarEventStore}, rather than to the whole process. It is thread-safe, so every query
+ * of that store can use it.
+ */
+public final class AttendeeDictionary {
+  private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+  private final List<String> namesById = new ArrayList<>();
+
+  /**
+   * Returns the id of {@code attendee}, assigning the next free id if it doesn't have one yet.
+   */
+  public int intern(String attendee) {
+    Integer id = idsByName.get(attendee);
+    if (id != null) {
+      return id;
+    }
+    synchronized (this) {
+      id = idsByName.get(attendee);
+      if (id == null) {
+        id = namesById.size();
+        namesById.add(attendee);
+        // Publish the id last, so that nameOf works for every id readers can see.
+        idsByName.put(attendee, id);
+      }
+      return id;
+    }
+  }
+
+  /**
+   * Returns the id of {@code attendee}, or -1 if it has none.
+   */
+  public int find(String attendee) {
+    return idsByName.getOrDefault(attendee, -1);
+  }
+
+  /**
+   * Returns the name of the attendee with {@code id}.
+   */
+  public synchronized String nameOf(int id) {
+    return namesById.get(id);
+  }
+
+  /**
+   * Returns the number of attendees that have an id.
+   */
+  public int size() {
+    return idsByName.size();
+  }
+
+  /**
+   * Returns the ids of {@code attendees} as a sorted array without duplicates, interning names
+   * that don't have an id yet.
+   */
+  public int[] toSortedIds(Collection<String> attendees) {
+    int[] ids = new int[attendees.size()];
+    int count = 0;
+    for (String attendee : attendees) {
+      ids[count++] = intern(attendee);
+    }
+    Arrays.sort(ids);
+    int uniqueCount = 0;
+    for (int i = 0; i < count; i++) {
+      if (uniqueCount == 0 || ids[uniqueCount - 1] != ids[i]) {
+        ids[uniqueCount++] = ids[i];
+      }
+    }
+    return uniqueCount == count ? ids : Arrays.copyOf(ids, uniqueCount);
+  }
+
+  /**
+   * Returns a bit set in which bit {@code i} is set if the attendee with id {@code i} is in
+   * {@code attendees}. Names without an id are left out, since no group of ids can contain them.
+   */
+  public long[] toBitSet(Collection<String> attendees) {
+    int[] ids = new int[attendees.size()];
+    int count = 0;
+    for (String attendee : attendees) {
+      int id = find(attendee);
+      if (id >= 0) {
+        ids[count++] = id;
+      }
+    }
+    return toBitSet(ids, count);
+  }
+
+  /**
+   * Returns a bit set in which the bits of {@code ids} are set.
+   */
+  public static long[] toBitSet(int[] ids) {
+    return toBitSet(ids, ids.length);
+  }
+
+  private static long[] toBitSet(int[] ids, int count) {
+    int maxId = -1;
+    for (int i = 0; i < count; i++) {
+      maxId = Math.max(maxId, ids[i]);
+    }
+    long[] bitSet = new long[maxId / Long.SIZE + 1];
+    for (int i = 0; i < count; i++) {
+      bitSet[ids[i] / Long.SIZE] |= 1L << ids[i];
+    }
+    return bitSet;
+  }
+
+  /**
+   * Returns true if any id in {@code ids} is set in {@code bitSet}.
+   */
+  public static boolean intersects(int[] ids, long[] bitSet) {
+    return intersects(ids, 0, ids.length, bitSet);
+  }
+
+  /**
+   * Returns true if any id in {@code ids} from {@code from} (inclusive) to {@code to} (exclusive)
+   * is set in {@code bitSet}.
+   */
+  static boolean intersects(int[] ids, int from, int to, long[] bitSet) {
+    for (int i = from; i < to; i++) {
+      int word = ids[i] / Long.SIZE;
+      if (word < bitSet.length && (bitSet[word] & (1L << ids[i])) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
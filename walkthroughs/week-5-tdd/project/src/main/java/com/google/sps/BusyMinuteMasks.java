@@ -0,0 +1,198 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Busy time of every attendee stored as one bit per minute of the day. Bit {@code m} of an
+ * attendee's mask is set if they attend an event during minute {@code m}. Because a day only has
+ * 1440 minutes, a mask fits in {@link #WORDS} longs and the busy time of a whole group of attendees
+ * is the bitwise OR of their masks, no matter how many events they have.
+ *
+ * <p>Events without duration do not occupy any minute. The event sweep of {@link FindMeetingQuery}
+ * still ends a free range where such an event starts and begins a new one, so the minutes at which
+ * they start are kept in a second mask per attendee, with room for minute {@link #MINUTES} itself.
+ * The masks are not thread-safe. They can be shared between threads as long as they are no longer
+ * modified.
+ */
+public final class BusyMinuteMasks {
+  /** The number of minutes covered by a mask. */
+  public static final int MINUTES = TimeRange.WHOLE_DAY.duration();
+
+  /** The number of longs needed to store a mask. */
+  public static final int WORDS = (MINUTES + Long.SIZE - 1) / Long.SIZE;
+
+  private final Map<String, long[]> masks = new HashMap<>();
+
+  // The minutes at which the events without duration of each attendee start.
+  private final Map<String, long[]> splits = new HashMap<>();
+
+  /**
+   * Returns new masks containing every event in {@code events}.
+   */
+  public static BusyMinuteMasks of(Collection<Event> events) {
+    BusyMinuteMasks masks = new BusyMinuteMasks();
+    for (Event event : events) {
+      masks.add(event);
+    }
+    return masks;
+  }
+
+  /**
+   * Marks every attendee of {@code event} as busy for the duration of the event.
+   */
+  public void add(Event event) {
+    if (event.getWhen().duration() == 0) {
+      addSplit(event);
+      return;
+    }
+
+    int start = Math.max(event.getWhen().start(), 0);
+    int end = Math.min(event.getWhen().end(), MINUTES);
+    if (start >= end) {
+      return;
+    }
+
+    for (String attendee : event.getAttendees()) {
+      long[] mask = masks.computeIfAbsent(attendee, key -> new long[WORDS]);
+      setRange(mask, start, end);
+    }
+  }
+
+  private void addSplit(Event event) {
+    int minute = event.getWhen().start();
+    // The sweep never splits at the start of the day, and ignores events after the end of it.
+    if (minute <= TimeRange.START_OF_DAY || minute > MINUTES) {
+      return;
+    }
+    for (String attendee : event.getAttendees()) {
+      long[] mask = splits.computeIfAbsent(attendee, key -> new long[WORDS]);
+      mask[minute / Long.SIZE] |= 1L << minute;
+    }
+  }
+
+  /**
+   * ORs the masks of all {@code attendees} into {@code target}, which must have {@link #WORDS}
+   * elements.
+   */
+  public void orInto(Collection<String> attendees, long[] target) {
+    orInto(masks, attendees, target);
+  }
+
+  /**
+   * ORs the minutes at which events without duration of any of {@code attendees} start into
+   * {@code target}, which must have {@link #WORDS} elements.
+   */
+  public void orSplitsInto(Collection<String> attendees, long[] target) {
+    orInto(splits, attendees, target);
+  }
+
+  private static void orInto(
+      Map<String, long[]> masks, Collection<String> attendees, long[] target) {
+    for (String attendee : attendees) {
+      long[] mask = masks.get(attendee);
+      if (mask == null) {
+        continue;
+      }
+      for (int i = 0; i < WORDS; i++) {
+        target[i] |= mask[i];
+      }
+    }
+  }
+
+  /**
+   * Returns the first minute at or after {@code from} whose bit is set in {@code mask}, or
+   * {@link #MINUTES} if there is none.
+   */
+  static int nextBusyMinute(long[] mask, int from) {
+    if (from >= MINUTES) {
+      return MINUTES;
+    }
+    int wordIndex = from / Long.SIZE;
+    long word = mask[wordIndex] & (-1L << from);
+    while (word == 0) {
+      if (++wordIndex == WORDS) {
+        return MINUTES;
+      }
+      word = mask[wordIndex];
+    }
+    return Math.min(wordIndex * Long.SIZE + Long.numberOfTrailingZeros(word), MINUTES);
+  }
+
+  /**
+   * Returns the first minute at or after {@code from} whose bit is clear in {@code mask}, or
+   * {@link #MINUTES} if there is none.
+   */
+  static int nextFreeMinute(long[] mask, int from) {
+    if (from >= MINUTES) {
+      return MINUTES;
+    }
+    int wordIndex = from / Long.SIZE;
+    long word = ~mask[wordIndex] & (-1L << from);
+    while (word == 0) {
+      if (++wordIndex == WORDS) {
+        return MINUTES;
+      }
+      word = ~mask[wordIndex];
+    }
+    // The unused bits of the last word are clear, so this can go past the end of the day.
+    return Math.min(wordIndex * Long.SIZE + Long.numberOfTrailingZeros(word), MINUTES);
+  }
+
+  /**
+   * Returns the first minute at or after {@code from} whose bit is set in the {@code splits} mask,
+   * or {@code Integer.MAX_VALUE} if there is none. Unlike {@link #nextBusyMinute}, this can return
+   * {@link #MINUTES}.
+   */
+  static int nextSplitMinute(long[] splits, int from) {
+    if (from > MINUTES) {
+      return Integer.MAX_VALUE;
+    }
+    int wordIndex = from / Long.SIZE;
+    long word = splits[wordIndex] & (-1L << from);
+    while (word == 0) {
+      if (++wordIndex == WORDS) {
+        return Integer.MAX_VALUE;
+      }
+      word = splits[wordIndex];
+    }
+    return wordIndex * Long.SIZE + Long.numberOfTrailingZeros(word);
+  }
+
+  /**
+   * Sets the bits from {@code start} (inclusive) to {@code end} (exclusive) in {@code mask}.
+   */
+  private static void setRange(long[] mask, int start, int end) {
+    int startWord = start / Long.SIZE;
+    int endWord = (end - 1) / Long.SIZE;
+    // Shifts in Java only use the lowest six bits, so these are the in-word bit positions.
+    long firstWordMask = -1L << start;
+    long lastWordMask = -1L >>> -end;
+
+    if (startWord == endWord) {
+      mask[startWord] |= firstWordMask & lastWordMask;
+      return;
+    }
+
+    mask[startWord] |= firstWordMask;
+    for (int i = startWord + 1; i < endWord; i++) {
+      mask[i] = -1L;
+    }
+    mask[endWord] |= lastWordMask;
+  }
+}
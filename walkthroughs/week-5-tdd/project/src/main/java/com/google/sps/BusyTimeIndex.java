@@ -0,0 +1,299 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Index of the busy time of every attendee. For each attendee, the index keeps the merged
+ * (non-overlapping, non-touching) ranges during which they attend at least one event, ordered by
+ * start time. Adding an event only touches the ranges of its own attendees, so the index can be
+ * built once and kept up to date instead of re-scanning every event on each query.
+ *
+ * <p>To support removing events, the index also counts the ranges of the events of each attendee.
+ * Removing an event only re-merges the events of the merged range it was part of.
+ *
+ * <p>The free ranges of each attendee, the gaps between their busy ranges, are kept as well. A
+ * change only recomputes the free ranges next to the merged range it touched, so reading them
+ * never walks the whole day.
+ *
+ * <p>The index is not thread-safe. It can be shared between threads as long as it is no longer
+ * modified.
+ */
+public final class BusyTimeIndex {
+
+  /**
+   * A comparator for the merge heap, ordering the per-attendee iterators by their next range.
+   */
+  private static final Comparator<RangeCursor> CURSOR_COMPARATOR =
+      Comparator.comparingInt(cursor -> cursor.start);
+
+  // The exclusive end of the day.
+  private static final int END_OF_DAY = TimeRange.WHOLE_DAY.duration();
+
+  // Maps each attendee to their merged busy ranges, keyed by start with the exclusive end as value.
+  private final Map<String, TreeMap<Integer, Integer>> busyRanges = new HashMap<>();
+
+  // Maps each attendee to the number of their events with each range, packed as the start in the
+  // upper and the end in the lower 32 bits so that the ranges are ordered by start time.
+  private final Map<String, TreeMap<Long, Integer>> eventRanges = new HashMap<>();
+
+  // Maps each attendee with events to their free ranges during the day, keyed by start with the
+  // exclusive end as value.
+  private final Map<String, TreeMap<Integer, Integer>> freeRanges = new HashMap<>();
+
+  /**
+   * Returns a new index containing every event in {@code events}.
+   */
+  public static BusyTimeIndex of(Collection<Event> events) {
+    BusyTimeIndex index = new BusyTimeIndex();
+    for (Event event : events) {
+      index.add(event);
+    }
+    return index;
+  }
+
+  /**
+   * Marks every attendee of {@code event} as busy for the duration of the event.
+   */
+  public void add(Event event) {
+    int start = event.getWhen().start();
+    int end = event.getWhen().end();
+    for (String attendee : event.getAttendees()) {
+      eventRanges.computeIfAbsent(attendee, key -> new TreeMap<>())
+          .merge(pack(start, end), 1, Integer::sum);
+      TreeMap<Integer, Integer> ranges =
+          busyRanges.computeIfAbsent(attendee, key -> new TreeMap<>());
+      int blockStart = addRange(ranges, start, end);
+      updateFreeRanges(attendee, ranges, blockStart, ranges.get(blockStart));
+    }
+  }
+
+  /**
+   * Removes an event that was added before, freeing its attendees unless they attend another
+   * event at the same time. Returns false, without changing the index, if no attendee of
+   * {@code event} has an event at that time.
+   */
+  public boolean remove(Event event) {
+    int start = event.getWhen().start();
+    int end = event.getWhen().end();
+    long key = pack(start, end);
+    boolean removed = false;
+    for (String attendee : event.getAttendees()) {
+      TreeMap<Long, Integer> counts = eventRanges.get(attendee);
+      if (counts == null || !counts.containsKey(key)) {
+        continue;
+      }
+      removed = true;
+      if (counts.merge(key, -1, Integer::sum) == 0) {
+        counts.remove(key);
+      }
+
+      // Re-merge the remaining events of the merged range that contained the event.
+      TreeMap<Integer, Integer> ranges = busyRanges.get(attendee);
+      Map.Entry<Integer, Integer> block = ranges.floorEntry(start);
+      ranges.remove(block.getKey());
+      for (long range : counts.subMap(pack(block.getKey(), 0), true,
+          pack(block.getValue(), -1), true).keySet()) {
+        addRange(ranges, (int) (range >> 32), (int) range);
+      }
+      if (counts.isEmpty()) {
+        eventRanges.remove(attendee);
+        busyRanges.remove(attendee);
+        freeRanges.remove(attendee);
+      } else {
+        updateFreeRanges(attendee, ranges, block.getKey(), block.getValue());
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Moves {@code event} to {@code when} and returns the moved event. Events are read-only, so the
+   * moved event is a new event with the same title and attendees.
+   */
+  public Event move(Event event, TimeRange when) {
+    Event moved = new Event(event.getTitle(), when, event.getAttendees());
+    remove(event);
+    add(moved);
+    return moved;
+  }
+
+  /**
+   * Returns the merged busy ranges of {@code attendee} ordered by start time, as a read-only map
+   * from start to exclusive end.
+   */
+  public NavigableMap<Integer, Integer> getBusyRanges(String attendee) {
+    TreeMap<Integer, Integer> ranges = busyRanges.get(attendee);
+    if (ranges == null) {
+      return Collections.emptyNavigableMap();
+    }
+    return Collections.unmodifiableNavigableMap(ranges);
+  }
+
+  /**
+   * Returns the free ranges of {@code attendee} during the day ordered by start time, as a
+   * read-only map from start to exclusive end. These are the gaps between the merged busy ranges,
+   * so events without duration are ignored.
+   */
+  public NavigableMap<Integer, Integer> getFreeRanges(String attendee) {
+    TreeMap<Integer, Integer> ranges = freeRanges.get(attendee);
+    if (ranges == null) {
+      return Collections.unmodifiableNavigableMap(
+          new TreeMap<>(Collections.singletonMap(TimeRange.START_OF_DAY, END_OF_DAY)));
+    }
+    return Collections.unmodifiableNavigableMap(ranges);
+  }
+
+  /**
+   * Returns the busy ranges of all {@code attendees} ordered by start time. The ranges of the
+   * different attendees are merged lazily in a k-way pass, so ranges of different attendees may
+   * still overlap each other.
+   */
+  public Iterator<TimeRange> busyRangesOf(Collection<String> attendees) {
+    PriorityQueue<RangeCursor> heap =
+        new PriorityQueue<>(Math.max(1, attendees.size()), CURSOR_COMPARATOR);
+    for (String attendee : attendees) {
+      TreeMap<Integer, Integer> ranges = busyRanges.get(attendee);
+      if (ranges != null && !ranges.isEmpty()) {
+        heap.add(new RangeCursor(ranges.entrySet().iterator()));
+      }
+    }
+
+    return new Iterator<TimeRange>() {
+      @Override
+      public boolean hasNext() {
+        return !heap.isEmpty();
+      }
+
+      @Override
+      public TimeRange next() {
+        if (heap.isEmpty()) {
+          throw new NoSuchElementException();
+        }
+        RangeCursor cursor = heap.poll();
+        TimeRange range = TimeRange.fromStartEnd(cursor.start, cursor.end, false);
+        if (cursor.advance()) {
+          heap.add(cursor);
+        }
+        return range;
+      }
+    };
+  }
+
+  /**
+   * Adds the range from {@code start} (inclusive) to {@code end} (exclusive) to {@code ranges},
+   * merging it with every existing range it overlaps or touches. Returns the start of the merged
+   * range.
+   */
+  private static int addRange(TreeMap<Integer, Integer> ranges, int start, int end) {
+    Map.Entry<Integer, Integer> previous = ranges.floorEntry(start);
+    if (previous != null && previous.getValue() >= start) {
+      // The new range starts inside (or right at the end of) an existing range.
+      start = previous.getKey();
+      end = Math.max(end, previous.getValue());
+      ranges.remove(previous.getKey());
+    }
+
+    Map.Entry<Integer, Integer> next = ranges.ceilingEntry(start);
+    while (next != null && next.getKey() <= end) {
+      // The new range swallows the start of the following range.
+      end = Math.max(end, next.getValue());
+      ranges.remove(next.getKey());
+      next = ranges.ceilingEntry(start);
+    }
+
+    ranges.put(start, end);
+    return start;
+  }
+
+  /**
+   * Recomputes the free ranges of {@code attendee} after the busy ranges from {@code from} to
+   * {@code to} changed. Only the free ranges overlapping or touching that span are replaced; the
+   * span must start and end outside any busy range that reaches beyond it.
+   */
+  private void updateFreeRanges(
+      String attendee, TreeMap<Integer, Integer> busy, int from, int to) {
+    TreeMap<Integer, Integer> free = freeRanges.computeIfAbsent(attendee, key -> {
+      TreeMap<Integer, Integer> wholeDay = new TreeMap<>();
+      wholeDay.put(TimeRange.START_OF_DAY, END_OF_DAY);
+      return wholeDay;
+    });
+
+    // Widen the span to the free ranges that overlap or touch it, since they may grow or shrink.
+    int low = Math.max(from, TimeRange.START_OF_DAY);
+    int high = Math.min(to, END_OF_DAY);
+    Map.Entry<Integer, Integer> first = free.floorEntry(low);
+    if (first != null && first.getValue() >= low) {
+      low = first.getKey();
+    }
+    Map.Entry<Integer, Integer> last = free.floorEntry(high);
+    if (last != null && last.getValue() >= low) {
+      high = Math.max(high, last.getValue());
+    }
+    free.subMap(low, true, high, true).clear();
+
+    int freeStart = low;
+    for (Map.Entry<Integer, Integer> busyRange : busy.subMap(low, true, high, false).entrySet()) {
+      if (busyRange.getKey().equals(busyRange.getValue())) {
+        // An event without duration doesn't keep anyone busy.
+        continue;
+      }
+      if (busyRange.getKey() > freeStart) {
+        free.put(freeStart, busyRange.getKey());
+      }
+      freeStart = Math.max(freeStart, busyRange.getValue());
+    }
+    if (freeStart < high) {
+      free.put(freeStart, high);
+    }
+  }
+
+  private static long pack(int start, int end) {
+    return ((long) start << 32) | (end & 0xFFFFFFFFL);
+  }
+
+  /** Walks over the merged busy ranges of a single attendee. */
+  private static final class RangeCursor {
+    private final Iterator<Map.Entry<Integer, Integer>> iterator;
+    private int start;
+    private int end;
+
+    RangeCursor(Iterator<Map.Entry<Integer, Integer>> iterator) {
+      this.iterator = iterator;
+      advance();
+    }
+
+    /** Moves to the next range. Returns false if there are no more ranges. */
+    boolean advance() {
+      if (!iterator.hasNext()) {
+        return false;
+      }
+      Map.Entry<Integer, Integer> entry = iterator.next();
+      start = entry.getKey();
+      end = entry.getValue();
+      return true;
+    }
+  }
+}
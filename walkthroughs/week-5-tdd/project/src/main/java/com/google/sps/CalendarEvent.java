@@ -0,0 +1,101 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * CalendarEvent is the multi-day counterpart of {@code Event}: a specific group of people meeting
+ * at a point in time that is not limited to a single day. Calendar events are considered
+ * read-only.
+ */
+public final class CalendarEvent {
+  private final String title;
+  private final EpochTimeRange when;
+  private final Set<String> attendees = new HashSet<>();
+
+  /**
+   * Creates a new calendar event.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param when The time when the event takes place. Must be non-null.
+   * @param attendees The collection of people attending the event. Must be non-null.
+   */
+  public CalendarEvent(String title, EpochTimeRange when, Collection<String> attendees) {
+    if (title == null) {
+      throw new IllegalArgumentException("title cannot be null");
+    }
+
+    if (when == null) {
+      throw new IllegalArgumentException("when cannot be null");
+    }
+
+    if (attendees == null) {
+      throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
+    }
+
+    this.title = title;
+    this.when = when;
+    this.attendees.addAll(attendees);
+  }
+
+  /**
+   * Creates a calendar event for {@code event} taking place on {@code day} in {@code zone}.
+   */
+  public static CalendarEvent fromEvent(LocalDate day, Event event, ZoneId zone) {
+    return new CalendarEvent(event.getTitle(),
+        EpochTimeRange.fromTimeRange(day, event.getWhen(), zone), event.getAttendees());
+  }
+
+  /**
+   * Returns the human-readable name for this event.
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Returns the {@code EpochTimeRange} for when this event occurs.
+   */
+  public EpochTimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns a read-only set of required attendees for this event.
+   */
+  public Set<String> getAttendees() {
+    return Collections.unmodifiableSet(attendees);
+  }
+
+  @Override
+  public int hashCode() {
+    return title.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof CalendarEvent && equals(this, (CalendarEvent) other);
+  }
+
+  private static boolean equals(CalendarEvent a, CalendarEvent b) {
+    return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees);
+  }
+}
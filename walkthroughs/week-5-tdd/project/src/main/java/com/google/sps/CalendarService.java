@@ -0,0 +1,162 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A calendar whose events can be added, moved and cancelled while it is queried. The busy time of
+ * every attendee is kept merged in a {@link BusyTimeIndex} that is updated on every change, so
+ * queries read it directly instead of recomputing it from all events. Calendars change much less
+ * often than they are queried, so the service is guarded by a read-write lock that lets any number
+ * of queries run at the same time.
+ */
+public final class CalendarService {
+  private static final CalendarService instance = new CalendarService(Events.events);
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final BusyTimeIndex index = new BusyTimeIndex();
+  // Counts each event, since the same event can be added more than once. Keeps the order in which
+  // the events were added.
+  private final Map<Event, Integer> events = new LinkedHashMap<>();
+  private final FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+
+  public CalendarService(Event... events) {
+    for (Event event : events) {
+      add(event);
+    }
+  }
+
+  /**
+   * Returns the calendar shared by the servlets, which starts with the sample events.
+   */
+  public static CalendarService getInstance() {
+    return instance;
+  }
+
+  /**
+   * Adds {@code event} to the calendar.
+   */
+  public void add(Event event) {
+    lock.writeLock().lock();
+    try {
+      events.merge(event, 1, Integer::sum);
+      index.add(event);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Cancels {@code event}. Returns false if the event is not in the calendar.
+   */
+  public boolean cancel(Event event) {
+    lock.writeLock().lock();
+    try {
+      return removeEvent(event);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Moves {@code event} to {@code when} and returns the moved event.
+   *
+   * @throws IllegalArgumentException if the event is not in the calendar.
+   */
+  public Event move(Event event, TimeRange when) {
+    lock.writeLock().lock();
+    try {
+      if (!removeEvent(event)) {
+        throw new IllegalArgumentException(event.getTitle() + " is not in the calendar");
+      }
+      Event moved = new Event(event.getTitle(), when, event.getAttendees());
+      events.merge(moved, 1, Integer::sum);
+      index.add(moved);
+      return moved;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns a copy of all events in the calendar.
+   */
+  public List<Event> getEvents() {
+    lock.readLock().lock();
+    try {
+      List<Event> copy = new ArrayList<>();
+      for (Map.Entry<Event, Integer> event : events.entrySet()) {
+        for (int i = 0; i < event.getValue(); i++) {
+          copy.add(event.getKey());
+        }
+      }
+      return copy;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns a copy of the free ranges of {@code attendee}, see
+   * {@link BusyTimeIndex#getFreeRanges(String)}.
+   */
+  public Map<Integer, Integer> getFreeRanges(String attendee) {
+    lock.readLock().lock();
+    try {
+      return new TreeMap<>(index.getFreeRanges(attendee));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the time ranges that fit the meeting request. If the request has optional attendees,
+   * the ranges fit as many of them as possible.
+   */
+  public Collection<TimeRange> query(MeetingRequest request) {
+    lock.readLock().lock();
+    try {
+      if (request.getOptionalAttendees().isEmpty()) {
+        return findMeetingQuery.query(index, request);
+      }
+      return findMeetingQuery.queryWithOptionalAttendees(index, request);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private boolean removeEvent(Event event) {
+    Integer count = events.get(event);
+    if (count == null) {
+      return false;
+    }
+    if (count == 1) {
+      events.remove(event);
+    } else {
+      events.put(event, count - 1);
+    }
+    index.remove(event);
+    return true;
+  }
+}
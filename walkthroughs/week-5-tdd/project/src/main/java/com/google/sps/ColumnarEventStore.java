@@ -0,0 +1,170 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Events stored column by column instead of as one object per event. The start and duration of
+ * event {@code i} are {@code starts[i]} and {@code durations[i]}, and its attendees are interned
+ * to dense int ids kept in one shared array: the ids of event {@code i} are the sorted entries
+ * from {@code attendeeOffsets[i]} to {@code attendeeOffsets[i + 1]}. A calendar with millions of
+ * events is therefore a handful of arrays instead of millions of {@code Event}, {@code TimeRange}
+ * and {@code HashSet} objects. The ids come from an {@link AttendeeDictionary}.
+ *
+ * <p>{@link #get(int)} recreates an {@code Event} for callers that need the object API. The store
+ * is not thread-safe. It can be shared between threads as long as it is no longer modified.
+ */
+public final class ColumnarEventStore {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private int size = 0;
+  private String[] titles = new String[INITIAL_CAPACITY];
+  private int[] starts = new int[INITIAL_CAPACITY];
+  private int[] durations = new int[INITIAL_CAPACITY];
+  private int[] attendeeOffsets = new int[INITIAL_CAPACITY + 1];
+  private int[] attendeeIds = new int[INITIAL_CAPACITY];
+
+  private final AttendeeDictionary dictionary;
+
+  public ColumnarEventStore() {
+    this(new AttendeeDictionary());
+  }
+
+  public ColumnarEventStore(AttendeeDictionary dictionary) {
+    this.dictionary = dictionary;
+  }
+
+  /**
+   * Returns a new store containing every event in {@code events}.
+   */
+  public static ColumnarEventStore of(Collection<Event> events) {
+    ColumnarEventStore store = new ColumnarEventStore();
+    for (Event event : events) {
+      store.add(event);
+    }
+    return store;
+  }
+
+  /**
+   * Adds {@code event} to the store.
+   */
+  public void add(Event event) {
+    add(event.getTitle(), event.getWhen().start(), event.getWhen().duration(),
+        event.getAttendees());
+  }
+
+  /**
+   * Adds an event to the store without creating an {@code Event} for it first.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param start The start of the event in minutes since the start of the day.
+   * @param duration The duration of the event in minutes.
+   * @param attendees The people attending the event. Must be non-null.
+   */
+  public void add(String title, int start, int duration, Collection<String> attendees) {
+    if (title == null) {
+      throw new IllegalArgumentException("title cannot be null");
+    }
+
+    if (attendees == null) {
+      throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
+    }
+
+    if (size == starts.length) {
+      int capacity = size * 2;
+      titles = Arrays.copyOf(titles, capacity);
+      starts = Arrays.copyOf(starts, capacity);
+      durations = Arrays.copyOf(durations, capacity);
+      attendeeOffsets = Arrays.copyOf(attendeeOffsets, capacity + 1);
+    }
+
+    int[] ids = dictionary.toSortedIds(attendees);
+    int offset = attendeeOffsets[size];
+    if (offset + ids.length > attendeeIds.length) {
+      attendeeIds =
+          Arrays.copyOf(attendeeIds, Math.max(attendeeIds.length * 2, offset + ids.length));
+    }
+    System.arraycopy(ids, 0, attendeeIds, offset, ids.length);
+
+    titles[size] = title;
+    starts[size] = start;
+    durations[size] = duration;
+    attendeeOffsets[size + 1] = offset + ids.length;
+    size++;
+  }
+
+  /**
+   * Returns the number of events in the store.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns event {@code index} as an {@code Event}. A new object is created on every call.
+   */
+  public Event get(int index) {
+    checkIndex(index);
+    List<String> attendees = new ArrayList<>();
+    for (int i = attendeeOffsets[index]; i < attendeeOffsets[index + 1]; i++) {
+      attendees.add(dictionary.nameOf(attendeeIds[i]));
+    }
+    return new Event(titles[index],
+        TimeRange.fromStartDuration(starts[index], durations[index]), attendees);
+  }
+
+  /**
+   * Returns the start of event {@code index} in minutes since the start of the day.
+   */
+  public int getStart(int index) {
+    checkIndex(index);
+    return starts[index];
+  }
+
+  /**
+   * Returns the duration of event {@code index} in minutes.
+   */
+  public int getDuration(int index) {
+    checkIndex(index);
+    return durations[index];
+  }
+
+  /**
+   * Returns a bit set of the ids of {@code attendees}, for use with {@link #attendsAny}. People
+   * who don't attend any event are left out.
+   */
+  long[] toAttendeeSet(Collection<String> attendees) {
+    return dictionary.toBitSet(attendees);
+  }
+
+  /**
+   * Returns true if any attendee of event {@code index} is in {@code attendeeSet}.
+   */
+  boolean attendsAny(int index, long[] attendeeSet) {
+    return AttendeeDictionary.intersects(
+        attendeeIds, attendeeOffsets[index], attendeeOffsets[index + 1], attendeeSet);
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+}
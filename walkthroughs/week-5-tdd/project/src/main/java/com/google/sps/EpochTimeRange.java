@@ -0,0 +1,149 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Comparator;
+
+/**
+ * Class representing a span of time that is not limited to a single day. Unlike
+ * {@code TimeRange}, which counts minutes from the start of the day, the start of this range is
+ * the number of minutes since the epoch (1970-01-01T00:00Z), so ranges can span several days and
+ * can be compared regardless of the time zone they were created in.
+ */
+public final class EpochTimeRange {
+  /**
+   * A comparator for sorting ranges by their start time in ascending order.
+   */
+  public static final Comparator<EpochTimeRange> ORDER_BY_START =
+      Comparator.comparingLong(EpochTimeRange::start);
+
+  /**
+   * A comparator for sorting ranges by their end time in ascending order.
+   */
+  public static final Comparator<EpochTimeRange> ORDER_BY_END =
+      Comparator.comparingLong(EpochTimeRange::end);
+
+  private final long start;
+  private final long duration;
+
+  private EpochTimeRange(long start, long duration) {
+    this.start = start;
+    this.duration = duration;
+  }
+
+  /**
+   * Returns the start of the range in minutes since the epoch.
+   */
+  public long start() {
+    return start;
+  }
+
+  /**
+   * Returns the number of minutes between the start and end.
+   */
+  public long duration() {
+    return duration;
+  }
+
+  /**
+   * Returns the end of the range. This ending value is the closing exclusive bound.
+   */
+  public long end() {
+    return start + duration;
+  }
+
+  /**
+   * Checks if two ranges overlap. This means that at least some part of one range falls within the
+   * bounds of another range.
+   */
+  public boolean overlaps(EpochTimeRange other) {
+    return this.contains(other.start) || other.contains(this.start);
+  }
+
+  /**
+   * Checks if {@code point}, in minutes since the epoch, falls within this range.
+   */
+  public boolean contains(long point) {
+    return duration > 0 && point >= start && point < start + duration;
+  }
+
+  /**
+   * Converts this range to a {@code TimeRange} within {@code day} in {@code zone}. The range must
+   * start and end within that day.
+   */
+  public TimeRange toTimeRange(LocalDate day, ZoneId zone) {
+    long startOfDay = toEpochMinute(day, zone);
+    if (start < startOfDay || end() > startOfDay + TimeRange.WHOLE_DAY.duration()) {
+      throw new IllegalArgumentException(this + " is not within " + day);
+    }
+    return TimeRange.fromStartDuration((int) (start - startOfDay), (int) duration);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof EpochTimeRange
+        && start == ((EpochTimeRange) other).start
+        && duration == ((EpochTimeRange) other).duration;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(start) ^ Long.hashCode(duration);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Range: [%d, %d)", start, start + duration);
+  }
+
+  /**
+   * Creates an {@code EpochTimeRange} from {@code start} (inclusive) to {@code end} (exclusive).
+   */
+  public static EpochTimeRange fromStartEnd(long start, long end) {
+    return new EpochTimeRange(start, end - start);
+  }
+
+  /**
+   * Creates an {@code EpochTimeRange} starting at {@code start} with a duration equal to
+   * {@code duration}.
+   */
+  public static EpochTimeRange fromStartDuration(long start, long duration) {
+    return new EpochTimeRange(start, duration);
+  }
+
+  /**
+   * Creates an {@code EpochTimeRange} for {@code range} on {@code day} in {@code zone}.
+   */
+  public static EpochTimeRange fromTimeRange(LocalDate day, TimeRange range, ZoneId zone) {
+    return new EpochTimeRange(toEpochMinute(day, zone) + range.start(), range.duration());
+  }
+
+  /**
+   * Creates an {@code EpochTimeRange} covering every day from {@code firstDay} through
+   * {@code lastDay} (both inclusive) in {@code zone}.
+   */
+  public static EpochTimeRange fromDays(LocalDate firstDay, LocalDate lastDay, ZoneId zone) {
+    return fromStartEnd(toEpochMinute(firstDay, zone), toEpochMinute(lastDay.plusDays(1), zone));
+  }
+
+  /**
+   * Returns the start of {@code day} in {@code zone} in minutes since the epoch.
+   */
+  private static long toEpochMinute(LocalDate day, ZoneId zone) {
+    return day.atStartOfDay(zone).toEpochSecond() / 60;
+  }
+}
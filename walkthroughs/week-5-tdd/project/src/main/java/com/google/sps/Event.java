@@ -76,6 +76,14 @@ public final class Event {
     return Collections.unmodifiableSet(attendees);
   }
 
+  /**
+   * Returns the ids of the attendees in {@code dictionary} as a sorted array without duplicates,
+   * interning names that don't have an id yet.
+   */
+  public int[] getAttendeeIds(AttendeeDictionary dictionary) {
+    return dictionary.toSortedIds(attendees);
+  }
+
   @Override
   public int hashCode() {
     // For the hash code, just use the title. Most events "should" have different names and will
@@ -0,0 +1,225 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import com.google.appengine.api.datastore.Cursor;
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.Query.CompositeFilterOperator;
+import com.google.appengine.api.datastore.Query.Filter;
+import com.google.appengine.api.datastore.Query.FilterOperator;
+import com.google.appengine.api.datastore.Query.FilterPredicate;
+import com.google.appengine.api.datastore.Query.SortDirection;
+import com.google.appengine.api.datastore.QueryResultList;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores calendar events as datastore entities. Every entity is bucketed by the day it takes place
+ * on and lists its attendees in an indexed property, so the events of some attendees during some
+ * days are read with one indexed query instead of loading the whole calendar. The indexes are
+ * declared in {@code WEB-INF/datastore-indexes.xml}.
+ */
+public final class EventStore {
+  private static final String KIND = "Event";
+
+  // The datastore runs one query per value of an IN filter and allows at most 30 of them.
+  private static final int MAX_ATTENDEES_PER_QUERY = 30;
+
+  private final DatastoreService datastore;
+  private final ZoneId zone;
+
+  /**
+   * Creates a store for events in {@code zone}, which decides what day each event is on.
+   */
+  public EventStore(ZoneId zone) {
+    this(DatastoreServiceFactory.getDatastoreService(), zone);
+  }
+
+  public EventStore(DatastoreService datastore, ZoneId zone) {
+    this.datastore = datastore;
+    this.zone = zone;
+  }
+
+  /**
+   * Stores {@code event} taking place on {@code day} and returns its key.
+   */
+  public Key put(LocalDate day, Event event) {
+    return datastore.put(toEntity(day, event));
+  }
+
+  /**
+   * Stores all {@code events} taking place on {@code day} in one batch.
+   */
+  public List<Key> putAll(LocalDate day, Collection<Event> events) {
+    List<Entity> entities = new ArrayList<>();
+    for (Event event : events) {
+      entities.add(toEntity(day, event));
+    }
+    return datastore.put(entities);
+  }
+
+  /**
+   * Stores {@code events} taking place on {@code day} under keys named after the day and the
+   * position of each event in the list. Seeding the same events again, e.g. on every startup or
+   * from several instances at once, overwrites them instead of storing copies.
+   */
+  public List<Key> seed(LocalDate day, List<Event> events) {
+    List<Entity> entities = new ArrayList<>();
+    for (int i = 0; i < events.size(); i++) {
+      Key key = KeyFactory.createKey(KIND, "seed-" + day + "-" + i);
+      entities.add(toEntity(new Entity(key), day, events.get(i)));
+    }
+    return datastore.put(entities);
+  }
+
+  /**
+   * Returns up to {@code limit} events from {@code firstDay} through {@code lastDay} (both
+   * inclusive) ordered by start time, continuing after {@code cursor} if it is not null. If
+   * {@code attendee} is not null, only their events are returned.
+   *
+   * @throws IllegalArgumentException if the cursor is not valid.
+   */
+  public Page list(LocalDate firstDay, LocalDate lastDay, String attendee, int limit,
+      String cursor) {
+    Filter filter = getDaysFilter(firstDay, lastDay);
+    if (attendee != null) {
+      filter = CompositeFilterOperator.and(
+          new FilterPredicate("attendees", FilterOperator.EQUAL, attendee), filter);
+    }
+    Query query = new Query(KIND)
+        .setFilter(filter)
+        .addSort("day", SortDirection.ASCENDING)
+        .addSort("start", SortDirection.ASCENDING);
+
+    FetchOptions fetchOptions = FetchOptions.Builder.withLimit(limit);
+    if (cursor != null) {
+      fetchOptions.startCursor(Cursor.fromWebSafeString(cursor));
+    }
+    QueryResultList<Entity> entities = datastore.prepare(query).asQueryResultList(fetchOptions);
+
+    List<CalendarEvent> events = new ArrayList<>();
+    for (Entity entity : entities) {
+      events.add(toCalendarEvent(entity));
+    }
+    // A short page means there is nothing left to read.
+    String nextCursor =
+        entities.size() < limit ? null : entities.getCursor().toWebSafeString();
+    return new Page(events, nextCursor);
+  }
+
+  /**
+   * Returns every event of any of {@code attendees} from {@code firstDay} through {@code lastDay}
+   * (both inclusive). Only the day buckets of these attendees are read.
+   */
+  public List<CalendarEvent> load(
+      Collection<String> attendees, LocalDate firstDay, LocalDate lastDay) {
+    // An event of several attendees is found once per attendee, so keep each entity once.
+    Map<Key, Entity> entities = new LinkedHashMap<>();
+    List<String> attendeeList = new ArrayList<>(attendees);
+    for (int i = 0; i < attendeeList.size(); i += MAX_ATTENDEES_PER_QUERY) {
+      List<String> batch =
+          attendeeList.subList(i, Math.min(i + MAX_ATTENDEES_PER_QUERY, attendeeList.size()));
+      Query query = new Query(KIND).setFilter(CompositeFilterOperator.and(
+          new FilterPredicate("attendees", FilterOperator.IN, batch),
+          getDaysFilter(firstDay, lastDay)));
+      for (Entity entity : datastore.prepare(query).asIterable()) {
+        entities.put(entity.getKey(), entity);
+      }
+    }
+
+    List<CalendarEvent> events = new ArrayList<>();
+    for (Entity entity : entities.values()) {
+      events.add(toCalendarEvent(entity));
+    }
+    return events;
+  }
+
+  /**
+   * Returns the time zone of the events in this store.
+   */
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  private static Filter getDaysFilter(LocalDate firstDay, LocalDate lastDay) {
+    return CompositeFilterOperator.and(
+        new FilterPredicate("day", FilterOperator.GREATER_THAN_OR_EQUAL, firstDay.toEpochDay()),
+        new FilterPredicate("day", FilterOperator.LESS_THAN_OR_EQUAL, lastDay.toEpochDay()));
+  }
+
+  private static Entity toEntity(LocalDate day, Event event) {
+    return toEntity(new Entity(KIND), day, event);
+  }
+
+  private static Entity toEntity(Entity entity, LocalDate day, Event event) {
+    entity.setUnindexedProperty("title", event.getTitle());
+    entity.setProperty("day", day.toEpochDay());
+    entity.setProperty("start", (long) event.getWhen().start());
+    entity.setUnindexedProperty("duration", (long) event.getWhen().duration());
+    entity.setProperty("attendees", new ArrayList<>(event.getAttendees()));
+    return entity;
+  }
+
+  @SuppressWarnings("unchecked")
+  private CalendarEvent toCalendarEvent(Entity entity) {
+    LocalDate day = LocalDate.ofEpochDay((long) entity.getProperty("day"));
+    TimeRange when = TimeRange.fromStartDuration(
+        ((Long) entity.getProperty("start")).intValue(),
+        ((Long) entity.getProperty("duration")).intValue());
+    // The datastore stores an empty list as null.
+    Collection<String> attendees = (Collection<String>) entity.getProperty("attendees");
+    return new CalendarEvent((String) entity.getProperty("title"),
+        EpochTimeRange.fromTimeRange(day, when, zone),
+        attendees == null ? new ArrayList<>() : attendees);
+  }
+
+  /** A page of events and the cursor to continue after it. */
+  public static final class Page {
+    private final List<CalendarEvent> events;
+    private final String cursor;
+
+    Page(List<CalendarEvent> events, String cursor) {
+      this.events = events;
+      this.cursor = cursor;
+    }
+
+    /**
+     * Returns the events of this page.
+     */
+    public List<CalendarEvent> getEvents() {
+      return events;
+    }
+
+    /**
+     * Returns the cursor to pass to {@code list} for the next page, or null if this is the last
+     * page.
+     */
+    public String getCursor() {
+      return cursor;
+    }
+  }
+}
@@ -15,11 +15,24 @@
 package com.google.sps;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.PriorityQueue;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
 
 public final class FindMeetingQuery {
 
@@ -30,18 +43,65 @@ public final class FindMeetingQuery {
           Comparator.comparing(Event::getWhen, TimeRange.ORDER_BY_START);
 
   /**
-   * Returns true if the attendees in the event and the meeting request overlap.
+   * Scratch space for combining the busy minutes of the attendees, reused across queries on the
+   * same thread.
    */
-  private boolean isAttendeesOverlapping(Event event, MeetingRequest request) {
-    return !Collections.disjoint(event.getAttendees(), request.getAttendees());
+  private static final ThreadLocal<long[]> busyMinutes =
+      ThreadLocal.withInitial(() -> new long[BusyMinuteMasks.WORDS]);
+
+  /**
+   * Scratch space for combining the starts of the attendees' events without duration, reused
+   * like {@link #busyMinutes}.
+   */
+  private static final ThreadLocal<long[]> splitMinutes =
+      ThreadLocal.withInitial(() -> new long[BusyMinuteMasks.WORDS]);
+
+  /**
+   * The default number of events from which {@link #query(Collection, MeetingRequest)} filters and
+   * merges the events in parallel.
+   */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 100_000;
+
+  /**
+   * The smallest number of events a single task filters in parallel mode. Smaller tasks cost more
+   * to schedule than they save.
+   */
+  private static final int MIN_EVENTS_PER_TASK = 4096;
+
+  private int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+  /**
+   * Sets the number of events from which {@link #query(Collection, MeetingRequest)} splits the
+   * events over the common fork-join pool. Use {@code Integer.MAX_VALUE} to never go parallel.
+   */
+  public void setParallelThreshold(int parallelThreshold) {
+    if (parallelThreshold < 1) {
+      throw new IllegalArgumentException("parallelThreshold must be positive");
+    }
+    this.parallelThreshold = parallelThreshold;
+  }
+
+  /**
+   * Returns true if the attendees in the event and the meeting request overlap. Plain events have
+   * no interned ids to compare; {@link #query(ColumnarEventStore, MeetingRequest)} compares the ids
+   * its store keeps instead.
+   */
+  private static boolean isAttendeesOverlapping(Event event, Set<String> requestedAttendees) {
+    for (String attendee : event.getAttendees()) {
+      if (requestedAttendees.contains(attendee)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
    * Returns a list of sorted events that overlap with the meeting request.
    */
   private List<Event> sortOverlappingEvents(Collection<Event> events, MeetingRequest request) {
+    Set<String> requestedAttendees = new HashSet<>(request.getAttendees());
     List<Event> eventsList = events.stream()
-        .filter(event -> isAttendeesOverlapping(event, request))
+        .filter(event -> isAttendeesOverlapping(event, requestedAttendees))
         .collect(Collectors.toList());
 
     Collections.sort(eventsList, eventsComparator);
@@ -52,32 +112,543 @@ public final class FindMeetingQuery {
    * Returns a list of time ranges fit the meeting request.
    */
   public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    if (events.size() >= parallelThreshold) {
+      return queryInParallel(events, request);
+    }
     List<Event> eventsList = sortOverlappingEvents(events, request);
-    
+    Iterator<TimeRange> busyTimeRanges =
+        eventsList.stream().map(Event::getWhen).iterator();
+    return findAvailableTimeRanges(busyTimeRanges, request.getDuration());
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest)}, but splits the events into chunks that are
+   * filtered, sorted and merged into busy time ranges by the common fork-join pool. The partial
+   * lists of busy time ranges are then merged pairwise. Merging only drops time that is already
+   * busy, so the result is the same as that of the sequential sweep.
+   */
+  private Collection<TimeRange> queryInParallel(Collection<Event> events, MeetingRequest request) {
+    Event[] eventArray = events.toArray(new Event[0]);
+    Set<String> requestedAttendees = new HashSet<>(request.getAttendees());
+    int eventsPerTask = Math.max(MIN_EVENTS_PER_TASK,
+        eventArray.length / (4 * ForkJoinPool.getCommonPoolParallelism()));
+    long[] busyTimeRanges = ForkJoinPool.commonPool().invoke(
+        new BusyTimeTask(eventArray, 0, eventArray.length, requestedAttendees, eventsPerTask));
+    return findAvailableTimeRanges(busyTimeRanges, busyTimeRanges.length, request.getDuration());
+  }
+
+  /**
+   * Finds the merged busy time ranges of the requested attendees in
+   * {@code events[from]..events[to - 1]}, packed like in
+   * {@link #findAvailableTimeRanges(long[], int, long)}.
+   */
+  private static final class BusyTimeTask extends RecursiveTask<long[]> {
+    private final Event[] events;
+    private final int from;
+    private final int to;
+    private final Set<String> requestedAttendees;
+    private final int eventsPerTask;
+
+    BusyTimeTask(
+        Event[] events, int from, int to, Set<String> requestedAttendees, int eventsPerTask) {
+      this.events = events;
+      this.from = from;
+      this.to = to;
+      this.requestedAttendees = requestedAttendees;
+      this.eventsPerTask = eventsPerTask;
+    }
+
+    @Override
+    protected long[] compute() {
+      if (to - from <= eventsPerTask) {
+        long[] busyTimeRanges = new long[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+          if (isAttendeesOverlapping(events[i], requestedAttendees)) {
+            TimeRange when = events[i].getWhen();
+            busyTimeRanges[count++] = pack(when.start(), when.end());
+          }
+        }
+        Arrays.sort(busyTimeRanges, 0, count);
+        return Arrays.copyOf(busyTimeRanges, mergeSortedRanges(busyTimeRanges, count));
+      }
+
+      int middle = (from + to) >>> 1;
+      BusyTimeTask left =
+          new BusyTimeTask(events, from, middle, requestedAttendees, eventsPerTask);
+      left.fork();
+      long[] right =
+          new BusyTimeTask(events, middle, to, requestedAttendees, eventsPerTask).compute();
+      return mergeRangeLists(left.join(), right);
+    }
+  }
+
+  /**
+   * Merges the first {@code count} packed ranges of {@code ranges}, which must be sorted, in place
+   * and returns the number of merged ranges. A range is merged into the previous one if it starts
+   * before or at its end. Ranges without duration that don't touch another range are kept, because
+   * the sweep splits free time at them.
+   */
+  private static int mergeSortedRanges(long[] ranges, int count) {
+    int merged = 0;
+    for (int i = 0; i < count; i++) {
+      int start = (int) (ranges[i] >> 32);
+      int end = (int) ranges[i];
+      if (merged > 0 && start <= (int) ranges[merged - 1]) {
+        int previousStart = (int) (ranges[merged - 1] >> 32);
+        int previousEnd = (int) ranges[merged - 1];
+        ranges[merged - 1] = pack(previousStart, Math.max(previousEnd, end));
+      } else {
+        ranges[merged++] = ranges[i];
+      }
+    }
+    return merged;
+  }
+
+  /**
+   * Returns the merged ranges of two sorted lists of merged, packed ranges.
+   */
+  private static long[] mergeRangeLists(long[] a, long[] b) {
+    long[] ranges = new long[a.length + b.length];
+    int i = 0;
+    int j = 0;
+    int k = 0;
+    while (i < a.length && j < b.length) {
+      ranges[k++] = a[i] <= b[j] ? a[i++] : b[j++];
+    }
+    while (i < a.length) {
+      ranges[k++] = a[i++];
+    }
+    while (j < b.length) {
+      ranges[k++] = b[j++];
+    }
+    return Arrays.copyOf(ranges, mergeSortedRanges(ranges, k));
+  }
+
+  /**
+   * Packs a range into a long with the start in the upper 32 bits and the end in the lower 32
+   * bits, so that sorting packed ranges orders them by start.
+   */
+  private static long pack(int start, int end) {
+    return ((long) start << 32) | (end & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns a list of time ranges fit the meeting request, reading the busy time of the
+   * attendees from {@code index} instead of scanning every event.
+   */
+  public Collection<TimeRange> query(BusyTimeIndex index, MeetingRequest request) {
+    return findAvailableTimeRanges(
+        index.busyRangesOf(request.getAttendees()), request.getDuration());
+  }
+
+  /**
+   * Returns a list of time ranges fit the meeting request, reading the events from the columns of
+   * {@code store}. Busy time ranges are packed into longs and sorted as primitives, so apart from
+   * the result no object is created per event.
+   */
+  public Collection<TimeRange> query(ColumnarEventStore store, MeetingRequest request) {
+    long[] requestedAttendees = store.toAttendeeSet(request.getAttendees());
+    long[] busyTimeRanges = new long[16];
+    int count = 0;
+    for (int i = 0; i < store.size(); i++) {
+      if (!store.attendsAny(i, requestedAttendees)) {
+        continue;
+      }
+      if (count == busyTimeRanges.length) {
+        busyTimeRanges = Arrays.copyOf(busyTimeRanges, count * 2);
+      }
+      int start = store.getStart(i);
+      busyTimeRanges[count++] = pack(start, start + store.getDuration(i));
+    }
+    Arrays.sort(busyTimeRanges, 0, count);
+    return findAvailableTimeRanges(busyTimeRanges, count, request.getDuration());
+  }
+
+  /**
+   * Returns a list of time ranges fit the meeting request, reading the busy time of the
+   * attendees from per-minute {@code masks}. The cost of this query only depends on the number of
+   * attendees, not on the number of events.
+   */
+  public Collection<TimeRange> query(BusyMinuteMasks masks, MeetingRequest request) {
+    long[] busy = busyMinutes.get();
+    Arrays.fill(busy, 0L);
+    masks.orInto(request.getAttendees(), busy);
+    long[] splits = splitMinutes.get();
+    Arrays.fill(splits, 0L);
+    masks.orSplitsInto(request.getAttendees(), splits);
+
+    List<TimeRange> availableTimeRanges = new ArrayList<>();
+    int freeStart = BusyMinuteMasks.nextFreeMinute(busy, TimeRange.START_OF_DAY);
+    while (freeStart < BusyMinuteMasks.MINUTES) {
+      int freeEnd = BusyMinuteMasks.nextBusyMinute(busy, freeStart);
+      // Like in the event sweep, an event without duration inside the free range splits it.
+      int split = BusyMinuteMasks.nextSplitMinute(splits, freeStart + 1);
+      while (split < freeEnd) {
+        addIfLongEnough(availableTimeRanges, freeStart, split, request.getDuration());
+        freeStart = split;
+        split = BusyMinuteMasks.nextSplitMinute(splits, split + 1);
+      }
+      // The event sweep only offers the last minute of the day on its own if an event without
+      // duration ends the day.
+      if (freeEnd < BusyMinuteMasks.MINUTES || freeStart < TimeRange.END_OF_DAY
+          || split == BusyMinuteMasks.MINUTES) {
+        addIfLongEnough(availableTimeRanges, freeStart, freeEnd, request.getDuration());
+      }
+      freeStart = BusyMinuteMasks.nextFreeMinute(busy, freeEnd);
+    }
+    return availableTimeRanges;
+  }
+
+  /**
+   * Returns the {@code k} best time ranges for the meeting request according to {@code scorer},
+   * best first. Ranges with the same score are ordered by start time. Only the {@code k} best
+   * ranges found so far are kept while the day is swept, so this never collects every free range.
+   *
+   * <p>This builds a {@link BusyTimeIndex} of all events on every call. Callers that run many
+   * queries over the same events should build the index once and use
+   * {@link #suggest(BusyTimeIndex, MeetingRequest, int, SlotScorer)} instead.
+   */
+  public List<TimeRange> suggest(
+      Collection<Event> events, MeetingRequest request, int k, SlotScorer scorer) {
+    return suggest(BusyTimeIndex.of(events), request, k, scorer);
+  }
+
+  /**
+   * Same as {@link #suggest(Collection, MeetingRequest, int, SlotScorer)}, but reads the busy time
+   * of the attendees from {@code index}.
+   */
+  public List<TimeRange> suggest(
+      BusyTimeIndex index, MeetingRequest request, int k, SlotScorer scorer) {
+    if (k < 0) {
+      throw new IllegalArgumentException("k cannot be negative");
+    }
+    List<TimeRange> suggestions = new ArrayList<>();
+    if (k == 0) {
+      return suggestions;
+    }
+
+    // The worst of the best ranges is at the head, so that it can be replaced by a better one.
+    // A day never has more free ranges than minutes, so there is no need to allocate room for more.
+    PriorityQueue<ScoredTimeRange> best = new PriorityQueue<>(
+        Math.min(k, TimeRange.WHOLE_DAY.duration()), ScoredTimeRange.WORST_FIRST);
+    findAvailableTimeRanges(index.busyRangesOf(request.getAttendees()), request.getDuration(),
+        range -> {
+          ScoredTimeRange scored =
+              new ScoredTimeRange(range, scorer.score(range, request, index));
+          if (best.size() < k) {
+            best.add(scored);
+          } else if (ScoredTimeRange.WORST_FIRST.compare(scored, best.peek()) > 0) {
+            best.poll();
+            best.add(scored);
+          }
+        });
+
+    while (!best.isEmpty()) {
+      suggestions.add(best.poll().range);
+    }
+    Collections.reverse(suggestions);
+    return suggestions;
+  }
+
+  private static final class ScoredTimeRange {
+    // Lower scores first. Among equal scores, later ranges are worse.
+    static final Comparator<ScoredTimeRange> WORST_FIRST =
+        Comparator.<ScoredTimeRange>comparingDouble(scored -> scored.score)
+            .thenComparing(scored -> scored.range, TimeRange.ORDER_BY_START.reversed());
+
+    final TimeRange range;
+    final double score;
+
+    ScoredTimeRange(TimeRange range, double score) {
+      this.range = range;
+      this.score = score;
+    }
+  }
+
+  /**
+   * Returns a list of time ranges within {@code window} that fit the meeting request. The window
+   * can span any number of days, so a whole week or month is searched in a single pass over the
+   * events instead of one query per day. Free time is not split at midnight.
+   */
+  public Collection<EpochTimeRange> query(
+      Collection<CalendarEvent> events, MeetingRequest request, EpochTimeRange window) {
+    List<EpochTimeRange> busyTimeRanges = events.stream()
+        .filter(event -> event.getWhen().overlaps(window))
+        .filter(event -> !Collections.disjoint(event.getAttendees(), request.getAttendees()))
+        .map(CalendarEvent::getWhen)
+        .sorted(EpochTimeRange.ORDER_BY_START)
+        .collect(Collectors.toList());
+
+    List<EpochTimeRange> availableTimeRanges = new ArrayList<>();
+    long nextFreeMinute = window.start();
+    for (EpochTimeRange busyTimeRange : busyTimeRanges) {
+      if (busyTimeRange.start() > nextFreeMinute) {
+        addIfLongEnough(availableTimeRanges,
+            EpochTimeRange.fromStartEnd(nextFreeMinute, busyTimeRange.start()), request);
+      }
+      nextFreeMinute = Math.max(nextFreeMinute, busyTimeRange.end());
+    }
+
+    if (nextFreeMinute < window.end()) {
+      addIfLongEnough(availableTimeRanges,
+          EpochTimeRange.fromStartEnd(nextFreeMinute, window.end()), request);
+    }
+
+    return availableTimeRanges;
+  }
+
+  private static void addIfLongEnough(
+      List<TimeRange> availableTimeRanges, int start, int end, long duration) {
+    if (end - start >= duration) {
+      availableTimeRanges.add(TimeRange.fromStartEnd(start, end, false));
+    }
+  }
+
+  private static void addIfLongEnough(
+      List<EpochTimeRange> availableTimeRanges, EpochTimeRange range, MeetingRequest request) {
+    if (range.duration() >= request.getDuration()) {
+      availableTimeRanges.add(range);
+    }
+  }
+
+  /**
+   * Returns the time ranges that fit all required attendees of the meeting request and as many
+   * of its optional attendees as possible. Every meeting of the requested duration that starts
+   * inside one of the returned ranges (and ends inside it) is free for all required attendees and
+   * for the largest number of optional attendees that can be fit into the day. If there is no time
+   * that fits all required attendees, the result is empty.
+   *
+   * <p>Instead of trying every subset of optional attendees, this sweeps over the possible start
+   * times of the meeting once, counting how many attendees are busy at some point during the
+   * meeting. Required attendees count more than all optional attendees together, so the start
+   * times with the lowest count are the ones we are looking for.
+   */
+  public Collection<TimeRange> queryWithOptionalAttendees(
+      Collection<Event> events, MeetingRequest request) {
+    return queryWithOptionalAttendees(BusyTimeIndex.of(events), request);
+  }
+
+  /**
+   * Same as {@link #queryWithOptionalAttendees(Collection, MeetingRequest)}, but reads the busy
+   * time of the attendees from {@code index}.
+   */
+  public Collection<TimeRange> queryWithOptionalAttendees(
+      BusyTimeIndex index, MeetingRequest request) {
+    return findRangesForMostAttendees(
+        index::getBusyRanges, TimeRange.WHOLE_DAY.duration(), request);
+  }
+
+  /**
+   * Same as {@link #queryWithOptionalAttendees(Collection, MeetingRequest)}, but finds the ranges
+   * within {@code window}, like {@link #query(Collection, MeetingRequest, EpochTimeRange)}.
+   */
+  public Collection<EpochTimeRange> queryWithOptionalAttendees(
+      Collection<CalendarEvent> events, MeetingRequest request, EpochTimeRange window) {
+    // The busy ranges of each attendee in minutes since the start of the window.
+    Map<String, NavigableMap<Integer, Integer>> busyRanges = new HashMap<>();
+    for (CalendarEvent event : events) {
+      EpochTimeRange when = event.getWhen();
+      if (!when.overlaps(window)) {
+        continue;
+      }
+      int start = (int) (Math.max(when.start(), window.start()) - window.start());
+      int end = (int) (Math.min(when.end(), window.end()) - window.start());
+      for (String attendee : event.getAttendees()) {
+        busyRanges.computeIfAbsent(attendee, key -> new TreeMap<>()).merge(start, end, Math::max);
+      }
+    }
+
+    List<EpochTimeRange> availableTimeRanges = new ArrayList<>();
+    Collection<TimeRange> ranges = findRangesForMostAttendees(
+        attendee -> busyRanges.getOrDefault(attendee, Collections.emptyNavigableMap()),
+        (int) window.duration(), request);
+    for (TimeRange range : ranges) {
+      availableTimeRanges.add(
+          EpochTimeRange.fromStartDuration(window.start() + range.start(), range.duration()));
+    }
+    return availableTimeRanges;
+  }
+
+  /**
+   * Does the sweep of {@link #queryWithOptionalAttendees(Collection, MeetingRequest)} over a window
+   * of {@code windowLength} minutes. {@code busyRangesOf} returns the busy ranges of an attendee
+   * in minutes since the start of the window, ordered by start time.
+   */
+  private static Collection<TimeRange> findRangesForMostAttendees(
+      Function<String, Map<Integer, Integer>> busyRangesOf, int windowLength,
+      MeetingRequest request) {
+    if (request.getDuration() > windowLength) {
+      return new ArrayList<>();
+    }
+    int duration = (int) Math.max(1, request.getDuration());
+    // The meeting must start before this minute to end by the end of the window.
+    int startLimit = windowLength - duration + 1;
+    int requiredWeight = request.getOptionalAttendees().size() + 1;
+
+    List<Long> changes = new ArrayList<>();
+    for (String attendee : request.getAttendees()) {
+      addBlockedStarts(
+          changes, busyRangesOf.apply(attendee), duration, startLimit, requiredWeight);
+    }
+    for (String attendee : request.getOptionalAttendees()) {
+      addBlockedStarts(changes, busyRangesOf.apply(attendee), duration, startLimit, 1);
+    }
+    long[] sortedChanges = changes.stream().mapToLong(Long::longValue).sorted().toArray();
+
+    // Split the possible start times into segments in which the busy count does not change.
+    List<int[]> segments = new ArrayList<>();
+    int minimumCount = Integer.MAX_VALUE;
+    int busyCount = 0;
+    int position = TimeRange.START_OF_DAY;
+    int i = 0;
+    while (position < startLimit) {
+      while (i < sortedChanges.length && (int) (sortedChanges[i] >> 32) == position) {
+        busyCount += (int) sortedChanges[i];
+        i++;
+      }
+      int nextPosition =
+          i < sortedChanges.length ? (int) (sortedChanges[i] >> 32) : startLimit;
+      segments.add(new int[] {position, nextPosition, busyCount});
+      minimumCount = Math.min(minimumCount, busyCount);
+      position = nextPosition;
+    }
+
     List<TimeRange> availableTimeRanges = new ArrayList<>();
+    if (minimumCount >= requiredWeight) {
+      // Some required attendee is busy at every possible time.
+      return availableTimeRanges;
+    }
+
+    int runStart = -1;
+    int runEnd = -1;
+    for (int[] segment : segments) {
+      if (segment[2] != minimumCount) {
+        continue;
+      }
+      if (segment[0] != runEnd) {
+        if (runStart >= 0) {
+          availableTimeRanges.add(TimeRange.fromStartEnd(runStart, runEnd - 1 + duration, false));
+        }
+        runStart = segment[0];
+      }
+      runEnd = segment[1];
+    }
+    if (runStart >= 0) {
+      availableTimeRanges.add(TimeRange.fromStartEnd(runStart, runEnd - 1 + duration, false));
+    }
+    return availableTimeRanges;
+  }
+
+  /**
+   * Adds the start times at which a meeting of {@code duration} minutes would overlap one of the
+   * {@code busyRanges} of an attendee to {@code changes}. Each change is encoded as the start time
+   * in the upper 32 bits and the change of the busy count ({@code weight} or {@code -weight}) in
+   * the lower 32 bits, so that sorting the changes orders them by start time.
+   */
+  private static void addBlockedStarts(List<Long> changes, Map<Integer, Integer> busyRanges,
+      int duration, int startLimit, int weight) {
+    int blockedStart = -1;
+    int blockedEnd = -1;
+    for (Map.Entry<Integer, Integer> busyRange : busyRanges.entrySet()) {
+      if (busyRange.getKey().equals(busyRange.getValue())) {
+        // An event without duration doesn't keep anyone busy.
+        continue;
+      }
+      // Meetings starting in [start, end) would overlap this busy range.
+      int start = Math.max(busyRange.getKey() - duration + 1, TimeRange.START_OF_DAY);
+      int end = Math.min(busyRange.getValue(), startLimit);
+      if (start <= blockedEnd) {
+        // Merge with the previous blocked start times so that the attendee is only counted once.
+        blockedEnd = Math.max(blockedEnd, end);
+        continue;
+      }
+      addChange(changes, blockedStart, blockedEnd, weight);
+      blockedStart = start;
+      blockedEnd = end;
+    }
+    addChange(changes, blockedStart, blockedEnd, weight);
+  }
+
+  private static void addChange(List<Long> changes, int start, int end, int weight) {
+    if (start >= end) {
+      return;
+    }
+    changes.add(((long) start << 32) | (weight & 0xFFFFFFFFL));
+    changes.add(((long) end << 32) | (-weight & 0xFFFFFFFFL));
+  }
+
+  /**
+   * Returns the time ranges of the day that are not covered by {@code busyTimeRanges} and are
+   * at least {@code duration} minutes long. The busy time ranges must be sorted by start time.
+   */
+  private List<TimeRange> findAvailableTimeRanges(
+      Iterator<TimeRange> busyTimeRanges, long duration) {
+    List<TimeRange> availableTimeRanges = new ArrayList<>();
+    findAvailableTimeRanges(busyTimeRanges, duration, availableTimeRanges::add);
+    return availableTimeRanges;
+  }
+
+  /**
+   * Same as {@link #findAvailableTimeRanges(Iterator, long)}, but passes each available time range
+   * to {@code consumer} as soon as it is found instead of collecting them.
+   */
+  private void findAvailableTimeRanges(
+      Iterator<TimeRange> busyTimeRanges, long duration, Consumer<TimeRange> consumer) {
     int nextFreeMinute = TimeRange.START_OF_DAY;
-    for(Event event: eventsList) {
-      if (event.getWhen().start() > nextFreeMinute) {
+    while (busyTimeRanges.hasNext()) {
+      TimeRange busyTimeRange = busyTimeRanges.next();
+      if (busyTimeRange.start() > nextFreeMinute) {
         // Forms a new time range.
-        TimeRange availableTimeRange = TimeRange.fromStartEnd(nextFreeMinute, event.getWhen().start(), false);
-        if (availableTimeRange.duration() >= request.getDuration()) {
-          availableTimeRanges.add(availableTimeRange);
+        TimeRange availableTimeRange =
+            TimeRange.fromStartEnd(nextFreeMinute, busyTimeRange.start(), false);
+        if (availableTimeRange.duration() >= duration) {
+          consumer.accept(availableTimeRange);
         }
-        nextFreeMinute = event.getWhen().end();
+        nextFreeMinute = busyTimeRange.end();
       } else {
         // The event either is included in the occupied time range or extends the occupied time range.
-        if (event.getWhen().end() > nextFreeMinute) {
-          nextFreeMinute = event.getWhen().end();
+        if (busyTimeRange.end() > nextFreeMinute) {
+          nextFreeMinute = busyTimeRange.end();
         }
       }
     }
 
     if (nextFreeMinute < TimeRange.END_OF_DAY) {
       TimeRange availableTimeRange = TimeRange.fromStartEnd(nextFreeMinute, TimeRange.END_OF_DAY, true);
-      if (availableTimeRange.duration() >= request.getDuration()) {
-        availableTimeRanges.add(availableTimeRange);
+      if (availableTimeRange.duration() >= duration) {
+        consumer.accept(availableTimeRange);
       }
     }
+  }
+
+  /**
+   * Same as {@link #findAvailableTimeRanges(Iterator, long)}, but reads the first {@code count}
+   * busy time ranges from {@code packedBusyTimeRanges}, each packed as the start in the upper 32
+   * bits and the end in the lower 32 bits.
+   */
+  private List<TimeRange> findAvailableTimeRanges(
+      long[] packedBusyTimeRanges, int count, long duration) {
+    List<TimeRange> availableTimeRanges = new ArrayList<>();
+    int nextFreeMinute = TimeRange.START_OF_DAY;
+    for (int i = 0; i < count; i++) {
+      int start = (int) (packedBusyTimeRanges[i] >> 32);
+      int end = (int) packedBusyTimeRanges[i];
+      if (start > nextFreeMinute) {
+        if (start - nextFreeMinute >= duration) {
+          availableTimeRanges.add(TimeRange.fromStartEnd(nextFreeMinute, start, false));
+        }
+        nextFreeMinute = end;
+      } else if (end > nextFreeMinute) {
+        nextFreeMinute = end;
+      }
+    }
+
+    if (nextFreeMinute < TimeRange.END_OF_DAY
+        && TimeRange.END_OF_DAY + 1 - nextFreeMinute >= duration) {
+      availableTimeRanges.add(
+          TimeRange.fromStartEnd(nextFreeMinute, TimeRange.END_OF_DAY, true));
+    }
 
     return availableTimeRanges;
   }
@@ -67,6 +67,14 @@ public final class MeetingRequest {
     }
   }
 
+  /**
+   * Returns the required attendees as a bit set of their ids in {@code dictionary}. Attendees
+   * without an id are left out rather than given one, so requests never grow the dictionary.
+   */
+  public long[] getAttendeeBitSet(AttendeeDictionary dictionary) {
+    return dictionary.toBitSet(attendees);
+  }
+
   /**
    * Returns the duration of the meeting in minutes.
    */
@@ -0,0 +1,105 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Map;
+import java.util.NavigableMap;
+
+/**
+ * Ranks the free time ranges found for a meeting request, see
+ * {@link FindMeetingQuery#suggest(BusyTimeIndex, MeetingRequest, int, SlotScorer)}. Higher scores
+ * are better.
+ */
+@FunctionalInterface
+public interface SlotScorer {
+  /**
+   * Returns the score of {@code range}, a free time range that fits all required attendees of
+   * {@code request}. {@code index} holds the busy time of every attendee.
+   */
+  double score(TimeRange range, MeetingRequest request, BusyTimeIndex index);
+
+  /**
+   * Prefers ranges that start earlier in the day.
+   */
+  static SlotScorer earliest() {
+    return (range, request, index) -> -range.start();
+  }
+
+  /**
+   * Prefers ranges in which the meeting can start closer to {@code preferredStart}, in minutes
+   * since the start of the day.
+   */
+  static SlotScorer closestTo(int preferredStart) {
+    return (range, request, index) -> {
+      long latestStart = range.end() - request.getDuration();
+      long closestStart = Math.max(range.start(), Math.min(preferredStart, latestStart));
+      return -Math.abs(closestStart - preferredStart);
+    };
+  }
+
+  /**
+   * Prefers ranges in which more optional attendees have enough free time for the meeting. Each
+   * optional attendee is counted on their own, so the best range for all of them together may be
+   * scored lower than another.
+   */
+  static SlotScorer mostOptionalAttendeesFree() {
+    return (range, request, index) -> {
+      int freeAttendees = 0;
+      for (String attendee : request.getOptionalAttendees()) {
+        if (hasFreeTime(index.getBusyRanges(attendee), range, request.getDuration())) {
+          freeAttendees++;
+        }
+      }
+      return freeAttendees;
+    };
+  }
+
+  /**
+   * Prefers the ranges that the meeting fills best, so that long free ranges are kept for longer
+   * meetings instead of being cut into pieces.
+   */
+  static SlotScorer leastFragmentation() {
+    return (range, request, index) -> -(range.duration() - request.getDuration());
+  }
+
+  /**
+   * Returns true if the merged {@code busyRanges}, a map from start to exclusive end, leave at
+   * least {@code duration} free minutes in a row within {@code range}. Only the ranges from the one
+   * that may cover the start of {@code range} up to its end are looked at.
+   */
+  static boolean hasFreeTime(
+      NavigableMap<Integer, Integer> busyRanges, TimeRange range, long duration) {
+    // Merged ranges don't overlap, so no range before the floor range can reach into this one.
+    Integer firstStart = busyRanges.floorKey(range.start());
+    NavigableMap<Integer, Integer> overlappingRanges = busyRanges.subMap(
+        firstStart == null ? range.start() : firstStart, true, range.end(), false);
+
+    int freeStart = range.start();
+    for (Map.Entry<Integer, Integer> busyRange : overlappingRanges.entrySet()) {
+      int busyStart = busyRange.getKey();
+      int busyEnd = busyRange.getValue();
+      if (busyStart == busyEnd || busyEnd <= freeStart) {
+        // An event without duration doesn't keep anyone busy.
+        continue;
+      }
+      if (busyStart - freeStart >= duration) {
+        return true;
+      }
+      freeStart = busyEnd;
+    }
+    return range.end() - freeStart >= duration;
+  }
+}
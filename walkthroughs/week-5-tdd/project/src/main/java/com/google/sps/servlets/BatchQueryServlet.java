@@ -0,0 +1,128 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.CalendarService;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers an array of meeting requests in one call. The response is a JSON array holding the
+ * possible meeting times for each request, in the same order as the requests. Batches of more
+ * than {@link #MAX_BATCH_SIZE} requests, and requests with missing or null fields, are rejected
+ * with a 400.
+ */
+@WebServlet("/batch-query")
+public class BatchQueryServlet extends HttpServlet {
+  private static final Type TIME_RANGES_TYPE = new TypeToken<Collection<TimeRange>>() {}.getType();
+
+  // The queries of a batch share the common fork-join pool with every other batch, so one batch
+  // must not be able to keep it busy for long.
+  private static final int MAX_BATCH_SIZE = 100;
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    // Convert the JSON to a list of MeetingRequest, one request at a time so that reading stops
+    // as soon as the batch is too large.
+    List<MeetingRequest> meetingRequests = new ArrayList<>();
+    try {
+      JsonReader reader = new JsonReader(request.getReader());
+      reader.beginArray();
+      while (reader.hasNext()) {
+        if (meetingRequests.size() == MAX_BATCH_SIZE) {
+          throw new IllegalArgumentException("more than " + MAX_BATCH_SIZE + " requests");
+        }
+        meetingRequests.add(toMeetingRequest(gson.fromJson(reader, MeetingRequestJson.class)));
+      }
+      reader.endArray();
+    } catch (JsonParseException | IllegalArgumentException | IllegalStateException
+        | MalformedJsonException | EOFException e) {
+      // Covers bodies that are not an array of complete meeting requests.
+      response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+      return;
+    }
+
+    // Find the possible meeting times of all requests in parallel.
+    // The calendar keeps the busy time of every attendee up to date and can be queried from
+    // several threads at once.
+    CalendarService calendar = CalendarService.getInstance();
+    List<ForkJoinTask<Collection<TimeRange>>> answers = new ArrayList<>();
+    for (MeetingRequest meetingRequest : meetingRequests) {
+      answers.add(ForkJoinPool.commonPool().submit(() -> calendar.query(meetingRequest)));
+    }
+
+    // Send each answer as soon as it and all answers before it are ready.
+    response.setContentType("application/json");
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    writer.beginArray();
+    for (ForkJoinTask<Collection<TimeRange>> answer : answers) {
+      gson.toJson(answer.join(), TIME_RANGES_TYPE, writer);
+    }
+    writer.endArray();
+    writer.flush();
+  }
+
+  /**
+   * Returns the meeting request sent by the client.
+   *
+   * @throws IllegalArgumentException if a field is missing, null or negative.
+   */
+  private static MeetingRequest toMeetingRequest(MeetingRequestJson json) {
+    if (json == null || json.attendees == null || json.attendees.contains(null)
+        || json.duration == null || json.duration < 0) {
+      throw new IllegalArgumentException("invalid meeting request");
+    }
+    MeetingRequest meetingRequest = new MeetingRequest(json.attendees, json.duration);
+    if (json.optional_attendees != null) {
+      for (String attendee : json.optional_attendees) {
+        if (attendee == null) {
+          throw new IllegalArgumentException("invalid optional attendee");
+        }
+        meetingRequest.addOptionalAttendee(attendee);
+      }
+    }
+    return meetingRequest;
+  }
+
+  /**
+   * A meeting request as sent by the client, with the fields of {@link MeetingRequest}. Gson skips
+   * constructors, so any field can be missing.
+   */
+  private static final class MeetingRequestJson {
+    List<String> attendees;
+    List<String> optional_attendees;
+    Long duration;
+  }
+}
@@ -0,0 +1,135 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.CalendarService;
+import com.google.sps.Event;
+import com.google.sps.TimeRange;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Changes the sample calendar. The body of a POST is an event in the format returned by
+ * {@code /get-events}, which is added. The body of a DELETE is such an event, which is cancelled.
+ * The body of a PUT is {@code {"event": ..., "when": ...}}, which moves the event to the new time.
+ * Added and moved events are sent back; unknown events are answered with a 404.
+ */
+@WebServlet("/events")
+public class EventsServlet extends HttpServlet {
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Event event;
+    try {
+      event = toEvent(new Gson().fromJson(request.getReader(), EventJson.class));
+    } catch (JsonParseException | IllegalArgumentException e) {
+      response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+      return;
+    }
+    CalendarService.getInstance().add(event);
+    sendEvent(event, response);
+  }
+
+  @Override
+  public void doPut(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Event event;
+    TimeRange when;
+    try {
+      MoveJson move = new Gson().fromJson(request.getReader(), MoveJson.class);
+      if (move == null) {
+        throw new IllegalArgumentException("missing move");
+      }
+      event = toEvent(move.event);
+      when = toTimeRange(move.when);
+    } catch (JsonParseException | IllegalArgumentException e) {
+      response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+      return;
+    }
+
+    Event moved;
+    try {
+      moved = CalendarService.getInstance().move(event, when);
+    } catch (IllegalArgumentException e) {
+      // The event is not in the calendar.
+      response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+      return;
+    }
+    sendEvent(moved, response);
+  }
+
+  @Override
+  public void doDelete(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    Event event;
+    try {
+      event = toEvent(new Gson().fromJson(request.getReader(), EventJson.class));
+    } catch (JsonParseException | IllegalArgumentException e) {
+      response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+      return;
+    }
+    if (!CalendarService.getInstance().cancel(event)) {
+      response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+    }
+  }
+
+  private static void sendEvent(Event event, HttpServletResponse response) throws IOException {
+    response.setContentType("application/json");
+    response.getWriter().println(new Gson().toJson(event));
+  }
+
+  /**
+   * Returns the event sent by the client.
+   *
+   * @throws IllegalArgumentException if a field is missing or the time is not within the day.
+   */
+  private static Event toEvent(EventJson json) {
+    if (json == null || json.attendees == null || json.attendees.contains(null)) {
+      throw new IllegalArgumentException("missing attendees");
+    }
+    return new Event(json.title, toTimeRange(json.when), json.attendees);
+  }
+
+  /**
+   * Returns the time range sent by the client.
+   *
+   * @throws IllegalArgumentException if the range is missing or not within the day.
+   */
+  private static TimeRange toTimeRange(TimeRange json) {
+    if (json == null || json.start() < TimeRange.START_OF_DAY || json.duration() < 0
+        || json.end() > TimeRange.WHOLE_DAY.duration()) {
+      throw new IllegalArgumentException("when must be within the day");
+    }
+    return json;
+  }
+
+  /** An event as sent by the client. Gson skips constructors, so any field can be missing. */
+  private static final class EventJson {
+    String title;
+    TimeRange when;
+    List<String> attendees;
+  }
+
+  /** A move of {@code event} to {@code when}. */
+  private static final class MoveJson {
+    EventJson event;
+    TimeRange when;
+  }
+}
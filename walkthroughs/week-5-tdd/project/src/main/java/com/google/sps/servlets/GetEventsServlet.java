@@ -12,25 +12,76 @@
 // See the License for the specific language governing permissions and
 // limitations under the License.
 
+
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
+import com.google.sps.CalendarService;
+import com.google.sps.EventStore;
 import com.google.gson.Gson;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Returns the sample calendar, or with a {@code start-date} (and optional {@code end-date},
+ * {@code attendee}, {@code limit} and {@code cursor}) a page of the events stored in datastore
+ * during those days. A page is returned as {@code {"events": [...], "cursor": "..."}}, where the
+ * cursor is missing on the last page.
+ */
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
+  private static final int DEFAULT_LIMIT = 100;
+  private static final int MAX_LIMIT = 1000;
+
+  private final EventStore eventStore = new EventStore(ZoneOffset.UTC);
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
     Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    String jsonResponse;
+    if (request.getParameter("start-date") == null) {
+      jsonResponse = gson.toJson(CalendarService.getInstance().getEvents());
+    } else {
+      EventStore.Page page;
+      try {
+        LocalDate firstDay = LocalDate.parse(request.getParameter("start-date"));
+        String endDate = request.getParameter("end-date");
+        LocalDate lastDay = endDate == null ? firstDay : LocalDate.parse(endDate);
+        page = eventStore.list(firstDay, lastDay, request.getParameter("attendee"),
+            getLimit(request), request.getParameter("cursor"));
+      } catch (DateTimeParseException | IllegalArgumentException e) {
+        // Covers malformed dates, limits and cursors.
+        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        return;
+      }
+      jsonResponse = gson.toJson(page);
+    }
 
     // Send the JSON back as the response
     response.setContentType("application/json");
     response.getWriter().println(jsonResponse);
   }
+
+  /**
+   * Returns the number of events requested by the client, or the default if it didn't ask for a
+   * number.
+   *
+   * @throws IllegalArgumentException if the limit is not a positive number.
+   */
+  private static int getLimit(HttpServletRequest request) {
+    String limit = request.getParameter("limit");
+    if (limit == null) {
+      return DEFAULT_LIMIT;
+    }
+    int parsedLimit = Integer.parseInt(limit);
+    if (parsedLimit <= 0) {
+      throw new IllegalArgumentException("limit must be positive");
+    }
+    return Math.min(parsedLimit, MAX_LIMIT);
+  }
 }
@@ -14,21 +14,40 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
+import com.google.sps.CalendarEvent;
+import com.google.sps.CalendarService;
+import com.google.sps.EpochTimeRange;
+import com.google.sps.EventStore;
 import com.google.sps.FindMeetingQuery;
 import com.google.sps.MeetingRequest;
 import com.google.sps.TimeRange;
 import com.google.gson.Gson;
 import java.io.IOException;
-import java.util.Arrays;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Finds the possible times for the meeting request in the body. Without parameters, the sample
+ * calendar is searched. With a {@code start-date} and optional {@code end-date}, the events of the
+ * attendees during those days are loaded from datastore instead. Either way the answer is a list
+ * of time ranges whose start is in minutes since midnight of the first day searched, so ranges
+ * after the first day start at 1440 or later. Optional attendees are fit in as well as possible.
+ */
 @WebServlet("/query")
 public class QueryServlet extends HttpServlet {
+  private final EventStore eventStore = new EventStore(ZoneOffset.UTC);
+  private final FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
     Gson gson = new Gson();
@@ -36,10 +55,35 @@ public class QueryServlet extends HttpServlet {
     // Convert the JSON to an instance of MeetingRequest.
     MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
 
-    // Find the possible meeting times.
-    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
+    Collection<TimeRange> answer;
+    if (request.getParameter("start-date") == null) {
+      // Find the possible meeting times in the busy time kept up to date by the calendar.
+      answer = CalendarService.getInstance().query(meetingRequest);
+    } else {
+      LocalDate firstDay;
+      LocalDate lastDay;
+      try {
+        firstDay = LocalDate.parse(request.getParameter("start-date"));
+        String endDate = request.getParameter("end-date");
+        lastDay = endDate == null ? firstDay : LocalDate.parse(endDate);
+      } catch (DateTimeParseException e) {
+        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        return;
+      }
+      // Only the events of the attendees during these days are read.
+      Set<String> attendees = new HashSet<>(meetingRequest.getAttendees());
+      attendees.addAll(meetingRequest.getOptionalAttendees());
+      List<CalendarEvent> events = eventStore.load(attendees, firstDay, lastDay);
+      EpochTimeRange window = EpochTimeRange.fromDays(firstDay, lastDay, eventStore.getZone());
+      Collection<EpochTimeRange> ranges = meetingRequest.getOptionalAttendees().isEmpty()
+          ? findMeetingQuery.query(events, meetingRequest, window)
+          : findMeetingQuery.queryWithOptionalAttendees(events, meetingRequest, window);
+      answer = new ArrayList<>();
+      for (EpochTimeRange range : ranges) {
+        answer.add(TimeRange.fromStartDuration(
+            (int) (range.start() - window.start()), (int) range.duration()));
+      }
+    }
 
     // Convert the times to JSON
     String jsonResponse = gson.toJson(answer);
@@ -0,0 +1,47 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.utils.SystemProperty;
+import com.google.sps.EventStore;
+import com.google.sps.Events;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Stores the sample events in datastore as today's events when the app starts on the development
+ * server, so that the {@code start-date} modes of {@code /get-events} and {@code /query} have a
+ * calendar to read. Deployed apps are left alone, their calendars hold real events. Seeding is
+ * idempotent, so restarting the server does not duplicate the events.
+ */
+@WebListener
+public class SampleEventsListener implements ServletContextListener {
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    if (SystemProperty.environment.value() != SystemProperty.Environment.Value.Development) {
+      return;
+    }
+    EventStore eventStore = new EventStore(ZoneOffset.UTC);
+    eventStore.seed(LocalDate.now(ZoneOffset.UTC), Arrays.asList(Events.events));
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {}
+}
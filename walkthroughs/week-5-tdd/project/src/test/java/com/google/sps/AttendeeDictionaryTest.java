@@ -0,0 +1,118 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeDictionaryTest {
+  // Some people that we can use in our tests.
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  @Test
+  public void internAssignsDenseIds() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+
+    Assert.assertEquals(0, dictionary.intern(PERSON_A));
+    Assert.assertEquals(1, dictionary.intern(PERSON_B));
+    Assert.assertEquals(0, dictionary.intern(PERSON_A));
+    Assert.assertEquals(2, dictionary.size());
+    Assert.assertEquals(PERSON_B, dictionary.nameOf(1));
+  }
+
+  @Test
+  public void findDoesNotIntern() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+
+    Assert.assertEquals(-1, dictionary.find(PERSON_A));
+    Assert.assertEquals(0, dictionary.size());
+  }
+
+  @Test
+  public void sortedIdsWithoutDuplicates() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    dictionary.intern(PERSON_C);
+    dictionary.intern(PERSON_A);
+
+    int[] actual = dictionary.toSortedIds(Arrays.asList(PERSON_A, PERSON_B, PERSON_C, PERSON_A));
+
+    Assert.assertArrayEquals(new int[] {0, 1, 2}, actual);
+  }
+
+  @Test
+  public void bitSetLeavesOutUnknownAttendees() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    for (int i = 0; i < 100; i++) {
+      dictionary.intern("Person " + i);
+    }
+
+    long[] bitSet = dictionary.toBitSet(Arrays.asList("Person 3", "Person 70", PERSON_A));
+
+    Assert.assertArrayEquals(new long[] {1L << 3, 1L << (70 - 64)}, bitSet);
+    Assert.assertTrue(AttendeeDictionary.intersects(new int[] {1, 70}, bitSet));
+    Assert.assertFalse(AttendeeDictionary.intersects(new int[] {4, 71, 500}, bitSet));
+  }
+
+  @Test
+  public void emptyBitSetIntersectsNothing() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+
+    long[] bitSet = dictionary.toBitSet(Collections.emptyList());
+
+    Assert.assertFalse(AttendeeDictionary.intersects(new int[] {0, 1, 2}, bitSet));
+  }
+
+  @Test
+  public void eventsAndRequestsShareIds() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    Event event = new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_B, PERSON_A));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_C, PERSON_A), 30);
+
+    int[] eventIds = event.getAttendeeIds(dictionary);
+
+    Assert.assertArrayEquals(eventIds, event.getAttendeeIds(dictionary));
+    Assert.assertTrue(
+        AttendeeDictionary.intersects(eventIds, request.getAttendeeBitSet(dictionary)));
+    Assert.assertFalse(AttendeeDictionary.intersects(eventIds,
+        new MeetingRequest(Arrays.asList(PERSON_C), 30).getAttendeeBitSet(dictionary)));
+  }
+
+  @Test
+  public void queriesOnlyInternEventAttendees() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    ColumnarEventStore store = new ColumnarEventStore(dictionary);
+    store.add(new Event("Event 1", TimeRange.fromStartDuration(0, 60), Arrays.asList(PERSON_A)));
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    Collection<TimeRange> actual =
+        query.query(store, new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 30));
+    query.query(store, new MeetingRequest(Arrays.asList(PERSON_C), 30));
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(60, TimeRange.END_OF_DAY, true)), actual);
+    Assert.assertEquals(1, dictionary.size());
+    Assert.assertEquals(-1, dictionary.find(PERSON_B));
+  }
+}
@@ -0,0 +1,151 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BusyMinuteMasksTest {
+  // Some people that we can use in our tests.
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private FindMeetingQuery query;
+
+  @Before
+  public void setUp() {
+    query = new FindMeetingQuery();
+  }
+
+  @Test
+  public void findsBusyAndFreeMinutesAcrossWords() {
+    // 08:00 is minute 480, which is the first bit of word 7.
+    BusyMinuteMasks masks = BusyMinuteMasks.of(Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartEnd(TIME_0800AM - 1, TIME_0900AM, false), Arrays.asList(PERSON_A))));
+    long[] busy = new long[BusyMinuteMasks.WORDS];
+    masks.orInto(Arrays.asList(PERSON_A), busy);
+
+    Assert.assertEquals(TIME_0800AM - 1, BusyMinuteMasks.nextBusyMinute(busy, 0));
+    Assert.assertEquals(TIME_0900AM, BusyMinuteMasks.nextFreeMinute(busy, TIME_0800AM - 1));
+    Assert.assertEquals(BusyMinuteMasks.MINUTES, BusyMinuteMasks.nextBusyMinute(busy, TIME_0900AM));
+  }
+
+  @Test
+  public void overlappingEvents() {
+    // Events  :       |--A--|
+    //                     |--B--|
+    // Day     : |---------------------|
+    // Options : |--1--|         |--2--|
+    BusyMinuteMasks masks = BusyMinuteMasks.of(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0830AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_B))));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(masks, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void noOptionsForTooLongOfARequest() {
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A), TimeRange.WHOLE_DAY.duration() + 1);
+
+    Collection<TimeRange> actual = query.query(new BusyMinuteMasks(), request);
+
+    Assert.assertEquals(Arrays.asList(), actual);
+  }
+
+  @Test
+  public void wholeDayEventLeavesNoOptions() {
+    BusyMinuteMasks masks = BusyMinuteMasks.of(Arrays.asList(
+        new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Assert.assertEquals(Arrays.asList(), query.query(masks, request));
+  }
+
+  @Test
+  public void matchesEventScanOnRandomCalendars() {
+    Random random = new Random(7);
+    List<String> people = Arrays.asList("P0", "P1", "P2", "P3", "P4", "P5", "P6", "P7");
+
+    for (int round = 0; round < 1000; round++) {
+      List<Event> events = new ArrayList<>();
+      int numberOfEvents = random.nextInt(40);
+      for (int i = 0; i < numberOfEvents; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration() + 1);
+        int duration;
+        switch (random.nextInt(4)) {
+          case 0:
+            // Events without duration don't block any minute, but split free ranges.
+            duration = 0;
+            break;
+          case 1:
+            // Events ending at TimeRange.END_OF_DAY leave only the last minute of the day free.
+            start = Math.min(start, TimeRange.END_OF_DAY - 1);
+            duration = TimeRange.END_OF_DAY - start;
+            break;
+          default:
+            start = Math.min(start, TimeRange.END_OF_DAY);
+            duration = 1 + random.nextInt(TimeRange.WHOLE_DAY.duration() - start);
+        }
+        List<String> attendees = new ArrayList<>();
+        for (String person : people) {
+          if (random.nextInt(4) == 0) {
+            attendees.add(person);
+          }
+        }
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration), attendees));
+      }
+
+      List<String> attendees = new ArrayList<>();
+      for (String person : people) {
+        if (random.nextBoolean()) {
+          attendees.add(person);
+        }
+      }
+      MeetingRequest request = new MeetingRequest(attendees, random.nextInt(120));
+
+      Assert.assertEquals(
+          query.query(events, request), query.query(BusyMinuteMasks.of(events), request));
+    }
+  }
+}
@@ -0,0 +1,301 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BusyTimeIndexTest {
+  // Some people that we can use in our tests.
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private FindMeetingQuery query;
+
+  @Before
+  public void setUp() {
+    query = new FindMeetingQuery();
+  }
+
+  @Test
+  public void mergesOverlappingAndTouchingRanges() {
+    // Events  : |--A--|
+    //               |--A--|
+    //                     |--A--|     |--A--|
+    // Merged  : |-----------------|   |-----|
+    BusyTimeIndex index = BusyTimeIndex.of(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TIME_0930AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 4", TimeRange.fromStartDuration(TIME_1000AM + 30, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A))));
+
+    Map<Integer, Integer> expected = new HashMap<>();
+    expected.put(TIME_0800AM, TIME_1000AM);
+    expected.put(TIME_1000AM + 30, TIME_1000AM + 60);
+
+    Assert.assertEquals(expected, index.getBusyRanges(PERSON_A));
+    Assert.assertTrue(index.getBusyRanges(PERSON_B).isEmpty());
+  }
+
+  @Test
+  public void addingEventSpanningSeveralRangesMergesThem() {
+    BusyTimeIndex index = BusyTimeIndex.of(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A))));
+    index.add(new Event("Event 3", TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false),
+        Arrays.asList(PERSON_A)));
+
+    Map<Integer, Integer> expected = new HashMap<>();
+    expected.put(TIME_0800AM, TIME_1000AM);
+
+    Assert.assertEquals(expected, index.getBusyRanges(PERSON_A));
+  }
+
+  @Test
+  public void everyAttendeeIsConsidered() {
+    // Events  :       |--A--|     |--B--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--2--|     |--3--|
+    BusyTimeIndex index = BusyTimeIndex.of(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B))));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(index, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void ignoresPeopleNotAttending() {
+    BusyTimeIndex index = BusyTimeIndex.of(Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES), Arrays.asList(PERSON_A))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(index, request);
+    Collection<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void matchesEventScanOnSampleEvents() {
+    BusyTimeIndex index = BusyTimeIndex.of(Arrays.asList(Events.events));
+    List<String> people = Arrays.asList("Amelia", "Ava", "Emma", "Isabella", "James", "Liam",
+        "Logan", "Noah", "Oliver", "Olivia");
+
+    for (int i = 0; i < people.size(); i++) {
+      MeetingRequest request =
+          new MeetingRequest(people.subList(i, people.size()), DURATION_30_MINUTES);
+      Assert.assertEquals(query.query(Arrays.asList(Events.events), request),
+          query.query(index, request));
+    }
+  }
+
+  @Test
+  public void matchesEventScanOnRandomCalendars() {
+    Random random = new Random(42);
+    List<String> people = Arrays.asList("P0", "P1", "P2", "P3", "P4", "P5", "P6", "P7");
+
+    for (int round = 0; round < 200; round++) {
+      List<Event> events = new ArrayList<>();
+      int numberOfEvents = random.nextInt(40);
+      for (int i = 0; i < numberOfEvents; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+        int duration = random.nextInt(TimeRange.WHOLE_DAY.duration() - start + 1);
+        List<String> attendees = new ArrayList<>();
+        for (String person : people) {
+          if (random.nextInt(4) == 0) {
+            attendees.add(person);
+          }
+        }
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration), attendees));
+      }
+
+      List<String> attendees = new ArrayList<>();
+      for (String person : people) {
+        if (random.nextBoolean()) {
+          attendees.add(person);
+        }
+      }
+      MeetingRequest request = new MeetingRequest(attendees, 1 + random.nextInt(120));
+
+      Assert.assertEquals(query.query(events, request), query.query(BusyTimeIndex.of(events), request));
+    }
+  }
+
+  @Test
+  public void removingEventSplitsMergedRange() {
+    // Events  : |--A--|--A--|--A--|
+    // Removed :       |--A--|
+    // Merged  : |-----|     |-----|
+    Event middle = new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A));
+    BusyTimeIndex index = BusyTimeIndex.of(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false),
+            Arrays.asList(PERSON_A)),
+        middle,
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false),
+            Arrays.asList(PERSON_A))));
+
+    Assert.assertTrue(index.remove(middle));
+
+    Map<Integer, Integer> expected = new HashMap<>();
+    expected.put(TIME_0800AM, TIME_0830AM);
+    expected.put(TIME_0900AM, TIME_0930AM);
+    Assert.assertEquals(expected, index.getBusyRanges(PERSON_A));
+  }
+
+  @Test
+  public void removingOneOfTwoEqualEventsKeepsTheOther() {
+    Event event = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+    BusyTimeIndex index = BusyTimeIndex.of(Arrays.asList(event, event));
+
+    Assert.assertTrue(index.remove(event));
+    Assert.assertEquals(1, index.getBusyRanges(PERSON_A).size());
+    Assert.assertTrue(index.remove(event));
+    Assert.assertEquals(0, index.getBusyRanges(PERSON_A).size());
+    Assert.assertFalse(index.remove(event));
+  }
+
+  @Test
+  public void movingEventFreesItsOldTime() {
+    Event event = new Event("Event 1",
+        TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A));
+    BusyTimeIndex index = BusyTimeIndex.of(Arrays.asList(event));
+
+    Event moved = index.move(event, TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES));
+
+    Assert.assertEquals(TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES),
+        moved.getWhen());
+    Map<Integer, Integer> expected = new HashMap<>();
+    expected.put(TIME_1000AM, TIME_1000AM + DURATION_30_MINUTES);
+    Assert.assertEquals(expected, index.getBusyRanges(PERSON_A));
+  }
+
+  @Test
+  public void freeRangesAreTheGapsBetweenBusyRanges() {
+    BusyTimeIndex index = BusyTimeIndex.of(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0930AM, 0),
+            Arrays.asList(PERSON_A))));
+
+    Map<Integer, Integer> expected = new HashMap<>();
+    expected.put(TimeRange.START_OF_DAY, TIME_0800AM);
+    expected.put(TIME_0900AM, TimeRange.WHOLE_DAY.duration());
+    Assert.assertEquals(expected, index.getFreeRanges(PERSON_A));
+    Assert.assertEquals(Collections.singletonMap(TimeRange.START_OF_DAY,
+        TimeRange.WHOLE_DAY.duration()), index.getFreeRanges(PERSON_B));
+  }
+
+  @Test
+  public void removingEventsMatchesRebuiltIndex() {
+    Random random = new Random(19);
+    List<String> people = Arrays.asList("P0", "P1", "P2", "P3");
+
+    for (int round = 0; round < 100; round++) {
+      List<Event> events = new ArrayList<>();
+      for (int i = 0; i < 30; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+        int duration = random.nextInt(Math.min(120, TimeRange.WHOLE_DAY.duration() - start + 1));
+        List<String> attendees = new ArrayList<>();
+        for (String person : people) {
+          if (random.nextInt(3) == 0) {
+            attendees.add(person);
+          }
+        }
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration), attendees));
+      }
+      BusyTimeIndex index = BusyTimeIndex.of(events);
+      for (String person : people) {
+        Assert.assertEquals(gapsBetween(index.getBusyRanges(person)), index.getFreeRanges(person));
+      }
+
+      // Remove a random half of the events.
+      Collections.shuffle(events, random);
+      List<Event> remaining = events.subList(events.size() / 2, events.size());
+      for (Event event : events.subList(0, events.size() / 2)) {
+        index.remove(event);
+        for (String person : people) {
+          Assert.assertEquals(
+              gapsBetween(index.getBusyRanges(person)), index.getFreeRanges(person));
+        }
+      }
+
+      BusyTimeIndex rebuilt = BusyTimeIndex.of(remaining);
+      for (String person : people) {
+        Assert.assertEquals(rebuilt.getBusyRanges(person), index.getBusyRanges(person));
+        Assert.assertEquals(rebuilt.getFreeRanges(person), index.getFreeRanges(person));
+      }
+    }
+  }
+
+  /** Computes the free ranges of the day from scratch, to check the ones kept by the index. */
+  private static Map<Integer, Integer> gapsBetween(Map<Integer, Integer> busyRanges) {
+    Map<Integer, Integer> gaps = new HashMap<>();
+    int freeStart = TimeRange.START_OF_DAY;
+    for (Map.Entry<Integer, Integer> busyRange : busyRanges.entrySet()) {
+      if (busyRange.getKey().equals(busyRange.getValue())) {
+        continue;
+      }
+      if (busyRange.getKey() > freeStart) {
+        gaps.put(freeStart, busyRange.getKey());
+      }
+      freeStart = Math.max(freeStart, busyRange.getValue());
+    }
+    if (freeStart < TimeRange.WHOLE_DAY.duration()) {
+      gaps.put(freeStart, TimeRange.WHOLE_DAY.duration());
+    }
+    return gaps;
+  }
+}
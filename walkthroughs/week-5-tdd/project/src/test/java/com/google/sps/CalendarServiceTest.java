@@ -0,0 +1,85 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarServiceTest {
+  // Some people that we can use in our tests.
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private static final Event EVENT_A = new Event("Event 1",
+      TimeRange.fromStartDuration(TIME_0800AM, DURATION_60_MINUTES), Arrays.asList(PERSON_A));
+  private static final Event EVENT_B = new Event("Event 2",
+      TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES), Arrays.asList(PERSON_B));
+
+  @Test
+  public void queryMatchesEventScan() {
+    CalendarService calendar = new CalendarService(EVENT_A, EVENT_B);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> expected =
+        new FindMeetingQuery().query(Arrays.asList(EVENT_A, EVENT_B), request);
+
+    Assert.assertEquals(expected, calendar.query(request));
+  }
+
+  @Test
+  public void cancelledEventsNoLongerBlockTime() {
+    CalendarService calendar = new CalendarService(EVENT_A, EVENT_B);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Assert.assertTrue(calendar.cancel(EVENT_A));
+
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), calendar.query(request));
+    Assert.assertEquals(Arrays.asList(EVENT_B), calendar.getEvents());
+    Assert.assertFalse(calendar.cancel(EVENT_A));
+  }
+
+  @Test
+  public void movedEventsBlockTheirNewTime() {
+    CalendarService calendar = new CalendarService(EVENT_A);
+
+    Event moved =
+        calendar.move(EVENT_A, TimeRange.fromStartDuration(TIME_1000AM, DURATION_60_MINUTES));
+
+    Assert.assertEquals(Arrays.asList(moved), calendar.getEvents());
+    // Person A is now free from the start of the day until 10:00.
+    Assert.assertEquals(
+        Integer.valueOf(TIME_1000AM), calendar.getFreeRanges(PERSON_A).get(TimeRange.START_OF_DAY));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void movingUnknownEvent() {
+    new CalendarService().move(EVENT_A, TimeRange.WHOLE_DAY);
+  }
+}
@@ -0,0 +1,150 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class ColumnarEventStoreTest {
+  // Some people that we can use in our tests.
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private FindMeetingQuery query;
+
+  @Before
+  public void setUp() {
+    query = new FindMeetingQuery();
+  }
+
+  @Test
+  public void getRecreatesAddedEvents() {
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(i, DURATION_30_MINUTES),
+          i % 2 == 0 ? Arrays.asList(PERSON_A, PERSON_B) : Arrays.asList(PERSON_C)));
+    }
+
+    ColumnarEventStore store = ColumnarEventStore.of(events);
+
+    Assert.assertEquals(events.size(), store.size());
+    for (int i = 0; i < events.size(); i++) {
+      Assert.assertEquals(events.get(i), store.get(i));
+      Assert.assertEquals(i, store.getStart(i));
+      Assert.assertEquals(DURATION_30_MINUTES, store.getDuration(i));
+    }
+  }
+
+  @Test
+  public void duplicateAttendeesAreStoredOnce() {
+    ColumnarEventStore store = new ColumnarEventStore();
+    store.add("Event 1", TIME_0900AM, DURATION_30_MINUTES,
+        Arrays.asList(PERSON_B, PERSON_A, PERSON_B));
+
+    Assert.assertEquals(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A, PERSON_B)),
+        store.get(0));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void getOutsideOfStore() {
+    new ColumnarEventStore().get(0);
+  }
+
+  @Test
+  public void overlappingEvents() {
+    // Events  :       |--A--|
+    //                     |--B--|
+    // Day     : |---------------------|
+    // Options : |--1--|         |--2--|
+    ColumnarEventStore store = ColumnarEventStore.of(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0830AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+            Arrays.asList(PERSON_B))));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(store, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void unknownAttendeesAreFree() {
+    ColumnarEventStore store = ColumnarEventStore.of(Arrays.asList(
+        new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_C), DURATION_30_MINUTES);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), query.query(store, request));
+  }
+
+  @Test
+  public void matchesEventScanOnRandomCalendars() {
+    Random random = new Random(15);
+    List<String> people = Arrays.asList("P0", "P1", "P2", "P3", "P4", "P5", "P6", "P7");
+
+    for (int round = 0; round < 200; round++) {
+      List<Event> events = new ArrayList<>();
+      int numberOfEvents = random.nextInt(40);
+      for (int i = 0; i < numberOfEvents; i++) {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+        int duration = random.nextInt(TimeRange.WHOLE_DAY.duration() - start + 1);
+        List<String> attendees = new ArrayList<>();
+        for (String person : people) {
+          if (random.nextInt(4) == 0) {
+            attendees.add(person);
+          }
+        }
+        events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration), attendees));
+      }
+
+      List<String> attendees = new ArrayList<>();
+      for (String person : people) {
+        if (random.nextBoolean()) {
+          attendees.add(person);
+        }
+      }
+      MeetingRequest request = new MeetingRequest(attendees, random.nextInt(120));
+
+      Assert.assertEquals(
+          query.query(events, request), query.query(ColumnarEventStore.of(events), request));
+    }
+  }
+}
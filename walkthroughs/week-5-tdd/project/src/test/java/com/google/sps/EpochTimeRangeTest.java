@@ -0,0 +1,77 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EpochTimeRangeTest {
+  private static final LocalDate JAN_1_2020 = LocalDate.of(2020, 1, 1);
+  private static final long JAN_1_2020_UTC = 18262L * 24 * 60;
+
+  @Test
+  public void fromTimeRangeUsesTimeZone() {
+    TimeRange nineAm = TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(9, 0), 30);
+
+    Assert.assertEquals(EpochTimeRange.fromStartDuration(JAN_1_2020_UTC + 9 * 60, 30),
+        EpochTimeRange.fromTimeRange(JAN_1_2020, nineAm, ZoneOffset.UTC));
+    Assert.assertEquals(EpochTimeRange.fromStartDuration(JAN_1_2020_UTC + 1 * 60, 30),
+        EpochTimeRange.fromTimeRange(JAN_1_2020, nineAm, ZoneOffset.ofHours(8)));
+  }
+
+  @Test
+  public void fromDaysCoversWholeDays() {
+    EpochTimeRange week =
+        EpochTimeRange.fromDays(JAN_1_2020, JAN_1_2020.plusDays(6), ZoneOffset.UTC);
+
+    Assert.assertEquals(JAN_1_2020_UTC, week.start());
+    Assert.assertEquals(7 * 24 * 60, week.duration());
+  }
+
+  @Test
+  public void fromDaysHandlesDaylightSavingTime() {
+    // Clocks in New York moved forward by an hour on 2020-03-08.
+    LocalDate day = LocalDate.of(2020, 3, 8);
+    EpochTimeRange range = EpochTimeRange.fromDays(day, day, ZoneId.of("America/New_York"));
+
+    Assert.assertEquals(23 * 60, range.duration());
+  }
+
+  @Test
+  public void toTimeRangeRoundTrips() {
+    TimeRange range = TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(13, 15), 45);
+    ZoneId zone = ZoneOffset.ofHours(-5);
+
+    Assert.assertEquals(
+        range, EpochTimeRange.fromTimeRange(JAN_1_2020, range, zone).toTimeRange(JAN_1_2020, zone));
+  }
+
+  @Test
+  public void overlapsAcrossMidnight() {
+    EpochTimeRange lateNight = EpochTimeRange.fromStartDuration(JAN_1_2020_UTC - 30, 60);
+
+    Assert.assertTrue(lateNight.overlaps(
+        EpochTimeRange.fromDays(JAN_1_2020, JAN_1_2020, ZoneOffset.UTC)));
+    Assert.assertFalse(lateNight.overlaps(
+        EpochTimeRange.fromStartDuration(JAN_1_2020_UTC + 30, 60)));
+  }
+}
@@ -0,0 +1,208 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import com.google.appengine.tools.development.testing.LocalDatastoreServiceTestConfig;
+import com.google.appengine.tools.development.testing.LocalServiceTestHelper;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventStoreTest {
+  // Some people that we can use in our tests.
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final LocalDate MONDAY = LocalDate.of(2020, 1, 6);
+  private static final LocalDate TUESDAY = MONDAY.plusDays(1);
+  private static final LocalDate WEDNESDAY = MONDAY.plusDays(2);
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private final LocalServiceTestHelper helper =
+      new LocalServiceTestHelper(new LocalDatastoreServiceTestConfig());
+
+  private EventStore store;
+
+  @Before
+  public void setUp() {
+    helper.setUp();
+    store = new EventStore(ZoneOffset.UTC);
+  }
+
+  @After
+  public void tearDown() {
+    helper.tearDown();
+  }
+
+  @Test
+  public void listsEventsOfTheDaysByStartTime() {
+    Event late = event("Event 1", TIME_1000AM, PERSON_A);
+    Event early = event("Event 2", TIME_0800AM, PERSON_B);
+    store.putAll(MONDAY, Arrays.asList(late, early));
+    store.put(TUESDAY, event("Event 3", TIME_0900AM, PERSON_A));
+    store.put(WEDNESDAY, event("Event 4", TIME_0900AM, PERSON_A));
+
+    EventStore.Page page = store.list(MONDAY, TUESDAY, null, 10, null);
+
+    Assert.assertEquals(Arrays.asList(
+        CalendarEvent.fromEvent(MONDAY, early, ZoneOffset.UTC),
+        CalendarEvent.fromEvent(MONDAY, late, ZoneOffset.UTC),
+        CalendarEvent.fromEvent(TUESDAY, event("Event 3", TIME_0900AM, PERSON_A), ZoneOffset.UTC)),
+        page.getEvents());
+    Assert.assertNull(page.getCursor());
+  }
+
+  @Test
+  public void listsOnlyEventsOfTheAttendee() {
+    store.put(MONDAY, event("Event 1", TIME_0800AM, PERSON_A, PERSON_B));
+    store.put(MONDAY, event("Event 2", TIME_0900AM, PERSON_B));
+    store.put(MONDAY, event("Event 3", TIME_1000AM, PERSON_C));
+
+    EventStore.Page page = store.list(MONDAY, MONDAY, PERSON_B, 10, null);
+
+    Assert.assertEquals(Arrays.asList("Event 1", "Event 2"), titles(page.getEvents()));
+  }
+
+  @Test
+  public void pagesContinueAtTheCursor() {
+    for (int i = 0; i < 5; i++) {
+      store.put(MONDAY, event("Event " + i, TIME_0800AM + i * DURATION_30_MINUTES, PERSON_A));
+    }
+
+    List<String> titles = new ArrayList<>();
+    String cursor = null;
+    int pages = 0;
+    do {
+      EventStore.Page page = store.list(MONDAY, MONDAY, PERSON_A, 2, cursor);
+      titles.addAll(titles(page.getEvents()));
+      cursor = page.getCursor();
+      pages++;
+    } while (cursor != null);
+
+    Assert.assertEquals(
+        Arrays.asList("Event 0", "Event 1", "Event 2", "Event 3", "Event 4"), titles);
+    Assert.assertEquals(3, pages);
+  }
+
+  @Test
+  public void seedingAgainDoesNotAddCopies() {
+    List<Event> events = Arrays.asList(
+        event("Event 1", TIME_0800AM, PERSON_A), event("Event 2", TIME_0900AM, PERSON_B));
+    store.seed(MONDAY, events);
+    store.seed(MONDAY, events);
+    store.seed(TUESDAY, events);
+
+    Assert.assertEquals(Arrays.asList("Event 1", "Event 2"),
+        titles(store.list(MONDAY, MONDAY, null, 10, null).getEvents()));
+    Assert.assertEquals(4, store.list(MONDAY, TUESDAY, null, 10, null).getEvents().size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidCursor() {
+    store.list(MONDAY, MONDAY, null, 10, "not a cursor");
+  }
+
+  @Test
+  public void loadsEventsOfAnyAttendeeOnce() {
+    store.put(MONDAY, event("Event 1", TIME_0800AM, PERSON_A, PERSON_B));
+    store.put(TUESDAY, event("Event 2", TIME_0900AM, PERSON_B));
+    store.put(TUESDAY, event("Event 3", TIME_1000AM, PERSON_C));
+    store.put(WEDNESDAY, event("Event 4", TIME_1000AM, PERSON_A));
+
+    List<CalendarEvent> events =
+        store.load(Arrays.asList(PERSON_A, PERSON_B), MONDAY, TUESDAY);
+
+    Assert.assertEquals(new HashSet<>(Arrays.asList("Event 1", "Event 2")),
+        new HashSet<>(titles(events)));
+    Assert.assertEquals(2, events.size());
+  }
+
+  @Test
+  public void queryWindowOfStoredEvents() {
+    store.put(MONDAY, new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A)));
+    store.put(TUESDAY, event("Event 2", TIME_0900AM, PERSON_A));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    EpochTimeRange window = EpochTimeRange.fromDays(MONDAY, TUESDAY, ZoneOffset.UTC);
+    Collection<EpochTimeRange> actual = new FindMeetingQuery()
+        .query(store.load(request.getAttendees(), MONDAY, TUESDAY), request, window);
+
+    EpochTimeRange busy = EpochTimeRange.fromTimeRange(
+        TUESDAY, TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), ZoneOffset.UTC);
+    EpochTimeRange tuesday = EpochTimeRange.fromDays(TUESDAY, TUESDAY, ZoneOffset.UTC);
+    Collection<EpochTimeRange> expected =
+        Arrays.asList(EpochTimeRange.fromStartEnd(tuesday.start(), busy.start()),
+            EpochTimeRange.fromStartEnd(busy.end(), window.end()));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void queryWindowWithOptionalAttendee() {
+    store.put(MONDAY, new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A)));
+    store.put(TUESDAY, event("Event 2", TIME_0900AM, PERSON_A));
+    store.put(TUESDAY, event("Event 3", TIME_1000AM, PERSON_B));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    EpochTimeRange window = EpochTimeRange.fromDays(MONDAY, TUESDAY, ZoneOffset.UTC);
+    Collection<EpochTimeRange> actual = new FindMeetingQuery().queryWithOptionalAttendees(
+        store.load(Arrays.asList(PERSON_A, PERSON_B), MONDAY, TUESDAY), request, window);
+
+    EpochTimeRange busyA = EpochTimeRange.fromTimeRange(
+        TUESDAY, TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), ZoneOffset.UTC);
+    EpochTimeRange busyB = EpochTimeRange.fromTimeRange(
+        TUESDAY, TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES), ZoneOffset.UTC);
+    EpochTimeRange tuesday = EpochTimeRange.fromDays(TUESDAY, TUESDAY, ZoneOffset.UTC);
+    Collection<EpochTimeRange> expected =
+        Arrays.asList(EpochTimeRange.fromStartEnd(tuesday.start(), busyA.start()),
+            EpochTimeRange.fromStartEnd(busyA.end(), busyB.start()),
+            EpochTimeRange.fromStartEnd(busyB.end(), window.end()));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  private static Event event(String title, int start, String... attendees) {
+    return new Event(
+        title, TimeRange.fromStartDuration(start, DURATION_30_MINUTES), Arrays.asList(attendees));
+  }
+
+  private static List<String> titles(List<CalendarEvent> events) {
+    List<String> titles = new ArrayList<>();
+    for (CalendarEvent event : events) {
+      titles.add(event.getTitle());
+    }
+    return titles;
+  }
+}
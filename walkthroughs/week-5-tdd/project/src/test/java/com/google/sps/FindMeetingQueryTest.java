@@ -14,11 +14,15 @@
 
 package com.google.sps;
 
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -34,6 +38,8 @@ public final class FindMeetingQueryTest {
   // Some people that we can use in our tests.
   private static final String PERSON_A = "Person A";
   private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+  private static final String PERSON_D = "Person D";
 
   // All dates are the first day of the year 2020.
   private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
@@ -270,5 +276,305 @@ public final class FindMeetingQueryTest {
 
     Assert.assertEquals(expected, actual);
   }
-}
 
+  @Test
+  public void optionalAttendeeBusyAllDayIsIgnored() {
+    // Events  :       |--A--|     |--B--|
+    //           |--------------C--------------|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--2--|     |--3--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_C)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void optionalAttendeeIsConsidered() {
+    // Events  :       |--A--|     |--B--|
+    //                       |--C--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|                 |--2--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_C)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void maximizesNumberOfOptionalAttendees() {
+    // Nobody can fit all three optional attendees, but the time between C's and D's events fits
+    // two of them.
+    //
+    // Events  : |-----C-----|           |-----C-----|
+    //           |--D--|     |-----D-----------------|
+    // Day     : |-----------------------------------|
+    // Options :       |-----|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            Arrays.asList(PERSON_C)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_C)),
+        new Event("Event 3", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            Arrays.asList(PERSON_D)),
+        new Event("Event 4", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_D)),
+        new Event("Event 5", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.addOptionalAttendee(PERSON_D);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void noOptionsWhenRequiredAttendeeIsBusy() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> actual = query.queryWithOptionalAttendees(events, request);
+    Collection<TimeRange> expected = Arrays.asList();
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void windowSpanningSeveralDays() {
+    // Events  :   |-A-|                |--A--|
+    // Days    : |-----1-----|-----2-----|-----3-----|
+    // Options : |1|   |-------2--------|     |--3---|
+    LocalDate firstDay = LocalDate.of(2020, 1, 1);
+    EpochTimeRange window =
+        EpochTimeRange.fromDays(firstDay, firstDay.plusDays(2), ZoneOffset.UTC);
+    EpochTimeRange firstEvent = EpochTimeRange.fromTimeRange(firstDay,
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR), ZoneOffset.UTC);
+    // The second event runs from 11PM on the second day to 1AM on the third day.
+    EpochTimeRange secondEvent = EpochTimeRange.fromStartDuration(
+        window.start() + 2 * TimeRange.WHOLE_DAY.duration() - DURATION_1_HOUR, DURATION_2_HOUR);
+
+    Collection<CalendarEvent> events = Arrays.asList(
+        new CalendarEvent("Event 1", firstEvent, Arrays.asList(PERSON_A)),
+        new CalendarEvent("Event 2", secondEvent, Arrays.asList(PERSON_A)),
+        new CalendarEvent("Event 3", window, Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<EpochTimeRange> actual = query.query(events, request, window);
+    Collection<EpochTimeRange> expected =
+        Arrays.asList(EpochTimeRange.fromStartEnd(window.start(), firstEvent.start()),
+            EpochTimeRange.fromStartEnd(firstEvent.end(), secondEvent.start()),
+            EpochTimeRange.fromStartEnd(secondEvent.end(), window.end()));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void windowIgnoresEventsOutsideOfIt() {
+    LocalDate day = LocalDate.of(2020, 1, 1);
+    EpochTimeRange window = EpochTimeRange.fromDays(day, day, ZoneOffset.UTC);
+    Collection<CalendarEvent> events = Arrays.asList(
+        new CalendarEvent("Event 1", EpochTimeRange.fromStartDuration(window.end(), DURATION_1_HOUR),
+            Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<EpochTimeRange> actual = query.query(events, request, window);
+    Collection<EpochTimeRange> expected = Arrays.asList(window);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void parallelQueryMatchesSequentialQuery() {
+    Random random = new Random(17);
+    List<String> people = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      people.add("Person " + i);
+    }
+
+    // Enough events to be split over several tasks, including events without duration.
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 50000; i++) {
+      int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+      int duration = random.nextInt(Math.min(60, TimeRange.WHOLE_DAY.duration() - start + 1));
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+          Arrays.asList(people.get(random.nextInt(people.size())),
+              people.get(random.nextInt(people.size())))));
+    }
+
+    FindMeetingQuery parallelQuery = new FindMeetingQuery();
+    parallelQuery.setParallelThreshold(1);
+    query.setParallelThreshold(Integer.MAX_VALUE);
+    for (int round = 0; round < 20; round++) {
+      List<String> attendees = new ArrayList<>();
+      for (int i = 0; i < 1 + random.nextInt(3); i++) {
+        attendees.add(people.get(random.nextInt(people.size())));
+      }
+      MeetingRequest request = new MeetingRequest(attendees, random.nextInt(60));
+
+      Assert.assertEquals(query.query(events, request), parallelQuery.query(events, request));
+    }
+  }
+
+  @Test
+  public void suggestEarliestRanges() {
+    // Events  :       |--A--|     |--A--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--2--|     |--3--|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<TimeRange> actual = query.suggest(events, request, 2, SlotScorer.earliest());
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void suggestAllRangesInOrderOfTheQuery() {
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Assert.assertEquals(query.query(events, request),
+        query.suggest(events, request, Integer.MAX_VALUE, SlotScorer.earliest()));
+    Assert.assertEquals(Arrays.asList(), query.suggest(events, request, 0, SlotScorer.earliest()));
+  }
+
+  @Test
+  public void suggestRangeClosestToPreferredTime() {
+    // Events  :       |--A--|     |--A--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--2--|     |--3--|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<TimeRange> actual =
+        query.suggest(events, request, 1, SlotScorer.closestTo(TIME_0930AM + 15));
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void suggestRangeWithMostOptionalAttendeesFree() {
+    // Events  : |--B--|     |--C--|
+    //                       |--D--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|  2  |--3--|     4
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_C, PERSON_D)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.addOptionalAttendee(PERSON_D);
+
+    List<TimeRange> actual =
+        query.suggest(events, request, 2, SlotScorer.mostOptionalAttendeesFree());
+    // C and D are free before 9:00, B is free after 8:00.
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void suggestRangeThatFitsBest() {
+    // Events  :       |--A--|   |--A--|
+    // Day     : |---------------------------|
+    // Options : |--1--|     |2|     |---3---|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1",
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY + 60, TIME_0800AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<TimeRange> actual = query.suggest(events, request, 2, SlotScorer.leastFragmentation());
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TimeRange.START_OF_DAY + 60, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void hasFreeTimeAroundRangesStartingBeforeTheSlot() {
+    // Busy    : |--|     |--------|   |--|
+    // Slot    :        |--------------|
+    TreeMap<Integer, Integer> busyRanges = new TreeMap<>();
+    busyRanges.put(TIME_0800AM, TIME_0830AM);
+    busyRanges.put(TIME_0900AM, TIME_1000AM);
+    busyRanges.put(TIME_1100AM, TIME_1100AM + DURATION_30_MINUTES);
+    TimeRange slot = TimeRange.fromStartEnd(TIME_0830AM + 15, TIME_1100AM, false);
+
+    Assert.assertTrue(SlotScorer.hasFreeTime(busyRanges, slot, DURATION_60_MINUTES));
+    Assert.assertFalse(SlotScorer.hasFreeTime(busyRanges, slot, DURATION_60_MINUTES + 1));
+    Assert.assertFalse(SlotScorer.hasFreeTime(busyRanges,
+        TimeRange.fromStartEnd(TIME_0900AM + 15, TIME_1000AM, false), 1));
+  }
+}